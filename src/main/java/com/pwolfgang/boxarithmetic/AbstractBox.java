@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * The common view of the boxes that are multisets of boxes, as opposed to
+ * VirtualBoxes. Whatever its representation, such a box can be viewed as
+ * its distinct elements, sorted by compareTo, each with a multiplicity.
+ * The generic algorithms of NonEmptyBox and BoxOrder work on this view,
+ * and the methods defined here implement Box in terms of it.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+abstract class AbstractBox implements Box {
+
+    /**
+     * The number of elements in this box.
+     * @return the sum of the multiplicities
+     * @throws ArithmeticException if the size does not fit in a long
+     */
+    abstract long total();
+
+    /**
+     * The number of distinct elements in this box.
+     * @return the number of distinct elements
+     */
+    abstract int distinctSize();
+
+    /**
+     * The i-th distinct element of this box.
+     * @param i The index
+     * @return the i-th distinct element
+     */
+    abstract Box distinct(int i);
+
+    /**
+     * The multiplicity of the i-th distinct element of this box.
+     * @param i The index
+     * @return the number of times the i-th distinct element occurs
+     * @throws ArithmeticException if the multiplicity does not fit in a long
+     */
+    abstract long multiplicity(int i);
+
+    /**
+     * Indicate that the size of this box does not fit in a long.
+     * @return true if total would overflow
+     */
+    boolean isBig() {
+        return false;
+    }
+
+    /**
+     * The number of elements in this box.
+     * @return the sum of the multiplicities as a BigInteger
+     */
+    BigInteger bigTotal() {
+        return BigInteger.valueOf(total());
+    }
+
+    /**
+     * The multiplicity of the i-th distinct element of this box.
+     * @param i The index
+     * @return the number of times the i-th distinct element occurs
+     */
+    BigInteger bigMultiplicity(int i) {
+        return BigInteger.valueOf(multiplicity(i));
+    }
+
+    @Override
+    public abstract Box clone();
+
+    /**
+     * {@inheritDoc}
+     * The product is formed by truncatedProduct.
+     */
+    @Override
+    public final Box mulTruncated(Box other, int maxDegree) {
+        if (maxDegree < 0) {
+            throw new IllegalArgumentException("Degree " + maxDegree + " is negative");
+        }
+        return truncatedProduct(other, maxDegree);
+    }
+
+    /**
+     * The product of this box and another without the elements of degree
+     * greater than maxDegree. Each pair of distinct elements whose degrees
+     * add to at most maxDegree is added.
+     * @param other The other box
+     * @param maxDegree The largest degree kept, not negative
+     * @return this times other, truncated
+     */
+    Box truncatedProduct(Box other, int maxDegree) {
+        return switch (other) {
+            case VirtualBox v -> v.mulTruncated(this, maxDegree);
+            case AbstractBox a -> NonEmptyBox.product(this, a, maxDegree);
+            default -> throw new IllegalArgumentException("Cannot multiply " + other);
+        };
+    }
+
+    /**
+     * The degree of an element, the number of elements it contains. For
+     * the element α^k of a polynumber this is k, and for a monomial of a
+     * multinumber it is the total degree.
+     * @param element The element
+     * @return its degree, or Long.MAX_VALUE if that does not fit in a long
+     */
+    static long degree(Box element) {
+        return switch (element) {
+            case AbstractBox a -> a.isBig() ? Long.MAX_VALUE : a.total();
+            default -> 0;
+        };
+    }
+
+    /**
+     * The elements of a box of degree at most maxDegree.
+     * @param box The box
+     * @param maxDegree The largest degree kept
+     * @return box without the elements of larger degree
+     */
+    static Box lowTerms(Box box, long maxDegree) {
+        return switch (box) {
+            case VirtualBox v -> new VirtualBox(lowTerms(v.left(), maxDegree), lowTerms(v.right(), maxDegree));
+            case AbstractBox a -> {
+                var result = new BoxBuilder();
+                for (int i = 0; i < a.distinctSize(); i++) {
+                    if (degree(a.distinct(i)) <= maxDegree) {
+                        result.add(Box.of(a.distinct(i)), a.bigMultiplicity(i));
+                    }
+                }
+                yield result.build();
+            }
+            default -> box;
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return the number of elements in this mset
+     * @throws ArithmeticException if the size does not fit in an int
+     */
+    @Override
+    public int intSize() {
+        return Math.toIntExact(total());
+    }
+
+    @Override
+    public Box size() {
+        return NaturalBox.of(bigTotal());
+    }
+
+    @Override
+    public Box tB(Box b) {
+        int i = indexOf(b);
+        if (i < 0) {
+            return EmptyBox.ZERO;
+        }
+        return NonEmptyBox.ofSorted(new Box[]{distinct(i)}, new BigInteger[]{bigMultiplicity(i)}, 1);
+    }
+
+    /**
+     * Find an element by binary search.
+     * @param b The box to find
+     * @return the index of the distinct element equal to b, or -1.
+     */
+    int indexOf(Box b) {
+        int low = 0;
+        int high = distinctSize() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = distinct(mid).compareTo(b);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return A String consisting of nested [...]
+     */
+    @Override
+    public String toString() {
+        var stj = new StringJoiner(" ", "[", "]");
+        for (int i = 0; i < distinctSize(); i++) {
+            var s = distinct(i).toString();
+            for (long k = multiplicity(i); k > 0; k--) {
+                stj.add(s);
+            }
+        }
+        return stj.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return A String consisting of nested [...] with the innermost box
+     * replaced by an integer
+     */
+    @Override
+    public String toIntegerString() {
+        var sj = new StringJoiner(" ", "[", "]");
+        for (int i = 0; i < distinctSize(); i++) {
+            var s = distinct(i).toIntegerString();
+            for (long k = multiplicity(i); k > 0; k--) {
+                sj.add(s);
+            }
+        }
+        return sj.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each element is returned as many times as it occurs.
+     * @return An iterator to the contents of this box.
+     */
+    @Override
+    public Iterator<Box> iterator() {
+        return new Iterator<>() {
+            int index = 0;
+            long remaining = distinctSize() > 0 ? multiplicity(0) : 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < distinctSize();
+            }
+
+            @Override
+            public Box next() {
+                if (index >= distinctSize()) {
+                    throw new NoSuchElementException();
+                }
+                var result = distinct(index);
+                if (--remaining == 0 && ++index < distinctSize()) {
+                    remaining = multiplicity(index);
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Return a copy of the content as a list.
+     * @return The content as a list.
+     */
+    @Override
+    public List<Box> getContent() {
+        List<Box> result = new ArrayList<>(intSize());
+        forEach(result::add);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc }
+     * @return A polynumber representation of this mset.
+     */
+    @Override
+    public String asPolyNumber() {
+        var stringJoiner = new StringJoiner("+");
+        for (int i = 0; i < distinctSize(); i++) {
+            var count = bigMultiplicity(i);
+            Box first = distinct(i);
+            var stringBuilder = new StringBuilder();
+            if (first.getHeight() == 0) {
+                stringBuilder.append(count);
+            } else {
+                if (count.compareTo(BigInteger.ONE) > 0) {
+                    stringBuilder.append(count);
+                }
+                stringBuilder.append(genSupSub((AbstractBox) first));
+            }
+            stringJoiner.add(stringBuilder);
+        }
+        return stringJoiner.toString();
+    }
+
+    String genSupSub(AbstractBox m) {
+        var stb = new StringBuilder();
+        for (int i = 0; i < m.distinctSize(); i++) {
+            stb.append("\u03B1");
+            stb.append(genSub(m.distinct(i).intSize()));
+            long count = m.multiplicity(i);
+            if (count < 0) {
+                stb.append("\u207B");
+                stb.append(genSup(-count));
+            } else if (count > 1) {
+                stb.append(genSup(count));
+            }
+        }
+        return stb.toString();
+    }
+
+    String genSub(long n) {
+        var stb = new StringBuilder();
+        var s = Long.toString(n);
+        for (int i = 0; i < s.length(); i++) {
+            var k = (s.charAt(i) - '0');
+            stb.append(subScripts[k]);
+        }
+        return stb.toString();
+    }
+
+    String genSup(long n) {
+        var stb = new StringBuilder();
+        var s = Long.toString(n);
+        for (int i = 0; i < s.length(); i++) {
+            var k = (s.charAt(i) - '0');
+            stb.append(superScripts[k]);
+        }
+        return stb.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each element b contributes A to the power b, where only the empty
+     * boxes in b are counted. Elements with the same power are grouped and
+     * the sum is formed by Horner's rule.
+     */
+    @Override
+    public Box eval(Box A) {
+        if (A.isEmptyBox()) {
+            return Box.of(EmptyBox.ZERO);
+        }
+        var terms = new TreeMap<Long, BigInteger>(Comparator.reverseOrder());
+        for (int i = 0; i < distinctSize(); i++) {
+            long k = NonEmptyBox.emptyCount(distinct(i)).longValueExact();
+            terms.merge(k, bigMultiplicity(i), BigInteger::add);
+        }
+        var exponents = new long[terms.size()];
+        var coefficients = new Box[terms.size()];
+        int i = 0;
+        for (var term : terms.entrySet()) {
+            exponents[i] = term.getKey();
+            coefficients[i] = NaturalBox.of(term.getValue());
+            i++;
+        }
+        return horner(A, exponents, coefficients, i);
+    }
+
+    /**
+     * Evaluate the sum of coefficients[i]·A^exponents[i] by Horner's rule.
+     * Between two terms the partial sum is multiplied by A raised to the
+     * gap between their exponents, so a polynumber of degree d with no
+     * gaps takes d products by A.
+     * @param A The value to substitute
+     * @param exponents The exponents, in decreasing order
+     * @param coefficients The coefficients
+     * @param n The number of terms
+     * @return The value of the sum
+     */
+    static Box horner(Box A, long[] exponents, Box[] coefficients, int n) {
+        if (n == 0) {
+            return EmptyBox.ZERO;
+        }
+        Box result = coefficients[0];
+        for (int i = 1; i < n; i++) {
+            result = result.mul(A.pow(exponents[i - 1] - exponents[i])).add(coefficients[i]);
+        }
+        long last = exponents[n - 1];
+        return last == 0 ? result : result.mul(A.pow(last));
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * The subderivatives and Taylor shift of a polynumber, as in Wildberger's
+ * algebraic calculus. The k-th subderivative of p is the coefficient of
+ * β^k in p(α + β), which is the k-th derivative divided by k!, and so
+ * has integer coefficients; the first subderivative is the derivative.
+ * <p>
+ * The Taylor shift p(α + c) is formed from the coefficients by repeated
+ * synthetic division, which takes n²/2 additions of a coefficient times
+ * c. The coefficients of the result have about n log c more bits than
+ * those of p, so the result is already quadratic in size, and with the
+ * multiplication of BigInteger this is faster than the shift by
+ * convolution. The coefficients are held in longs until one overflows.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+final class AlgebraicCalculus {
+
+    private AlgebraicCalculus() {}
+
+    /**
+     * Form the k-th subderivative of a polynumber. The term cα^n becomes
+     * C(n, k) c α^(n-k).
+     * @param box The polynumber, or the difference of two
+     * @param k The order, not negative
+     * @return the k-th subderivative
+     * @throws IllegalArgumentException if k is negative or box is not a
+     * polynumber
+     */
+    static Box subderivative(Box box, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Order " + k + " is negative");
+        }
+        var f = Interpolation.coefficients(box);
+        if (f != null) {
+            return PolyNumber.of(subderivative(f, k));
+        }
+        return switch (box) {
+            case VirtualBox v -> new VirtualBox(subderivative(v.left(), k), subderivative(v.right(), k));
+            case AbstractBox a -> {
+                var result = new BoxBuilder();
+                for (int i = 0; i < a.distinctSize(); i++) {
+                    long n = exponent(a, i);
+                    if (n >= k) {
+                        result.add(Box.of(Box.of(n - k)), binomial(n, k).multiply(a.bigMultiplicity(i)));
+                    }
+                }
+                yield result.build();
+            }
+            default -> throw new IllegalArgumentException(box + " is not a polynumber");
+        };
+    }
+
+    /**
+     * Form p(α + c) for a polynumber p.
+     * @param box The polynumber p, or the difference of two
+     * @param c The shift
+     * @return p(α + c)
+     * @throws IllegalArgumentException if box is not a polynumber
+     */
+    static Box shift(Box box, BigInteger c) {
+        var f = coefficients(box).clone();
+        if (c.signum() == 0) {
+            return PolyNumber.of(f);
+        }
+        int d = f.length - 1;
+        int i = 0;
+        int j = d - 1;
+        var small = c.bitLength() < Long.SIZE ? toLong(f) : null;
+        if (small != null) {
+            long x = c.longValue();
+            try {
+                for (; i < d; i++, j = d - 1) {
+                    for (; j >= i; j--) {
+                        small[j] = Math.addExact(small[j], Math.multiplyExact(x, small[j + 1]));
+                    }
+                }
+                return PolyNumber.of(small);
+            } catch (ArithmeticException ex) {
+                f = Convolution.toBig(small);
+            }
+        }
+        for (; i < d; i++, j = d - 1) {
+            for (; j >= i; j--) {
+                f[j] = f[j].add(c.multiply(f[j + 1]));
+            }
+        }
+        return PolyNumber.of(f);
+    }
+
+    /**
+     * The coefficients as longs, or null if one does not fit.
+     */
+    private static long[] toLong(BigInteger[] f) {
+        var result = new long[f.length];
+        for (int i = 0; i < f.length; i++) {
+            if (f[i].bitLength() >= Long.SIZE) {
+                return null;
+            }
+            result[i] = f[i].longValue();
+        }
+        return result;
+    }
+
+    private static BigInteger[] subderivative(BigInteger[] f, int k) {
+        if (k >= f.length) {
+            return new BigInteger[0];
+        }
+        var result = new BigInteger[f.length - k];
+        var binomial = BigInteger.ONE;
+        for (int n = k; n < f.length; n++) {
+            result[n - k] = f[n].multiply(binomial);
+            binomial = binomial.multiply(BigInteger.valueOf(n + 1)).divide(BigInteger.valueOf(n + 1 - k));
+        }
+        return result;
+    }
+
+    private static BigInteger binomial(long n, int k) {
+        var result = BigInteger.ONE;
+        for (int i = 0; i < k; i++) {
+            result = result.multiply(BigInteger.valueOf(n - i)).divide(BigInteger.valueOf(i + 1));
+        }
+        return result;
+    }
+
+    /**
+     * The coefficients of a polynumber, or of the difference of two, in
+     * dense form. The array may be that of the polynumber and must not be
+     * changed.
+     * @param box The polynumber
+     * @return the coefficients
+     * @throws IllegalArgumentException if box is not a polynumber, or its
+     * degree is too large for a dense polynumber
+     */
+    static BigInteger[] coefficients(Box box) {
+        var dense = Interpolation.coefficients(box);
+        if (dense != null) {
+            return dense;
+        }
+        if (box instanceof VirtualBox v) {
+            var left = coefficients(v.left());
+            var right = coefficients(v.right());
+            var result = new BigInteger[Math.max(left.length, right.length)];
+            for (int i = 0; i < result.length; i++) {
+                var x = i < left.length ? left[i] : BigInteger.ZERO;
+                result[i] = i < right.length ? x.subtract(right[i]) : x;
+            }
+            return result;
+        }
+        if (!(box instanceof AbstractBox a)) {
+            throw new IllegalArgumentException(box + " is not a polynumber");
+        }
+        long degree = 0;
+        for (int i = 0; i < a.distinctSize(); i++) {
+            degree = Math.max(degree, exponent(a, i));
+        }
+        if (degree > PolyNumber.MAX_DEGREE) {
+            throw new IllegalArgumentException("The degree of " + box + " is too large");
+        }
+        var f = new BigInteger[(int) degree + 1];
+        Arrays.fill(f, BigInteger.ZERO);
+        for (int i = 0; i < a.distinctSize(); i++) {
+            f[(int) exponent(a, i)] = a.bigMultiplicity(i);
+        }
+        return f;
+    }
+
+    /**
+     * The exponent of the i-th distinct element of a polynumber.
+     * @throws IllegalArgumentException if the element is not a natural
+     * number
+     */
+    private static long exponent(AbstractBox a, int i) {
+        var element = a.distinct(i);
+        if (!(element instanceof EmptyBox || element instanceof NaturalBox n && !n.isBig())) {
+            throw new IllegalArgumentException(a + " is not a polynumber");
+        }
+        return AbstractBox.degree(element);
+    }
+
+}
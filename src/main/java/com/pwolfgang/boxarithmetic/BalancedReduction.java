@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * The sum or product of many boxes. The two smallest operands are always
+ * combined first, as in the construction of a Huffman code, so that a
+ * large intermediate result is never combined with many small operands in
+ * turn. The size of a box is the number of its distinct elements, and a
+ * sum or product is taken to be as large as its operands together, which
+ * is the length of the product of two dense polynumbers.
+ * <p>
+ * The combinations form a tree whose independent subtrees are evaluated
+ * in parallel on the pool of ForkJoinProduct when both have at least
+ * threshold distinct elements. The threshold can be set with the system
+ * property boxarithmetic.reduction.threshold. Addition and multiplication
+ * are commutative and associative, so the result does not depend on the
+ * order.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+final class BalancedReduction {
+
+    private static volatile int threshold
+            = Integer.getInteger("boxarithmetic.reduction.threshold", 256);
+
+    private BalancedReduction() {}
+
+    /**
+     * Set the size, in distinct elements, from which two subtrees are
+     * evaluated in parallel.
+     * @param n The threshold, at least 1
+     */
+    static void setThreshold(int n) {
+        threshold = Math.max(1, n);
+    }
+
+    static int threshold() {
+        return threshold;
+    }
+
+    /**
+     * Combine boxes with an operation.
+     * @param boxes The boxes, at least one
+     * @param operation Addition or multiplication
+     * @return the boxes combined
+     */
+    static Box reduce(Box[] boxes, BinaryOperator<Box> operation) {
+        var queue = new PriorityQueue<Node>();
+        for (int i = 0; i < boxes.length; i++) {
+            queue.add(new Node(boxes[i], size(boxes[i]), i));
+        }
+        int order = boxes.length;
+        while (queue.size() > 1) {
+            var x = queue.poll();
+            var y = queue.poll();
+            queue.add(new Node(x, y, order++));
+        }
+        var root = queue.poll();
+        if (root.box != null) {
+            return root.box;
+        }
+        var task = new Task(root, operation);
+        if (ForkJoinProduct.parallelism() > 1 && root.size >= threshold) {
+            return ForkJoinProduct.pool().invoke(task);
+        }
+        return task.compute();
+    }
+
+    private static long size(Box box) {
+        return switch (box) {
+            case VirtualBox v -> size(v.left()) + size(v.right());
+            case AbstractBox a -> a.distinctSize();
+            default -> 1;
+        };
+    }
+
+    /**
+     * A box, or the combination of two nodes. Nodes of the same size are
+     * taken in the order they were formed, so the tree does not depend on
+     * how the queue breaks ties.
+     */
+    private static final class Node implements Comparable<Node> {
+
+        final Box box;
+        final Node left;
+        final Node right;
+        final long size;
+        final int order;
+
+        Node(Box box, long size, int order) {
+            this.box = box;
+            this.left = null;
+            this.right = null;
+            this.size = size;
+            this.order = order;
+        }
+
+        Node(Node left, Node right, int order) {
+            this.box = null;
+            this.left = left;
+            this.right = right;
+            this.size = left.size + right.size;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Node other) {
+            int c = Long.compare(size, other.size);
+            return c != 0 ? c : Integer.compare(order, other.order);
+        }
+    }
+
+    /**
+     * Evaluate a node. The two subtrees are evaluated in parallel when
+     * both have at least threshold distinct elements.
+     */
+    private static final class Task extends RecursiveTask<Box> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Node node;
+        private final transient BinaryOperator<Box> operation;
+
+        Task(Node node, BinaryOperator<Box> operation) {
+            this.node = node;
+            this.operation = operation;
+        }
+
+        @Override
+        protected Box compute() {
+            if (node.box != null) {
+                return node.box;
+            }
+            var left = new Task(node.left, operation);
+            var right = new Task(node.right, operation);
+            if (inForkJoinPool() && node.left.size >= threshold && node.right.size >= threshold) {
+                left.fork();
+                var y = right.compute();
+                return operation.apply(left.join(), y);
+            }
+            return operation.apply(left.compute(), right.compute());
+        }
+    }
+
+}
@@ -17,9 +17,13 @@
  */
 package com.pwolfgang.boxarithmetic;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * An Box is a data structure that contains an unordered collection of objects
@@ -64,15 +68,218 @@ public interface Box extends Comparable<Box>, Cloneable, Iterable<Box> {
      */
     Box eval(Box A);
    
+    /**
+     * Raise this box to a power. Only the empty boxes in n are counted, so
+     * the exponent is the natural number part of n.
+     * @param n The exponent
+     * @return this to the power n
+     */
     default Box pow(Box n) {
-        Box prod = Box.of(1);
-        var itr = n.iterator();
-        while (itr.hasNext()) {
-            if (itr.next().isEmptyBox()) {
-                prod = prod.mul(this);
+        return pow(NonEmptyBox.emptyCount(n));
+    }
+
+    /**
+     * Raise this box to a power by repeated squaring, which takes a number
+     * of products proportional to the logarithm of n.
+     * @param n The exponent
+     * @return this to the power n
+     * @throws IllegalArgumentException if n is negative
+     */
+    default Box pow(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Negative exponent " + n);
+        }
+        Box result = null;
+        Box square = this;
+        while (n > 0) {
+            if ((n & 1) != 0) {
+                result = result == null ? square : result.mul(square);
+            }
+            n >>>= 1;
+            if (n > 0) {
+                square = square.square();
             }
         }
-        return prod;
+        return result == null ? Box.of(1) : result;
+    }
+
+    /**
+     * Raise this box to a power by repeated squaring.
+     * @param n The exponent
+     * @return this to the power n
+     * @throws IllegalArgumentException if n is negative
+     */
+    default Box pow(BigInteger n) {
+        if (n.bitLength() < Long.SIZE) {
+            return pow(n.longValue());
+        }
+        if (n.signum() < 0) {
+            throw new IllegalArgumentException("Negative exponent " + n);
+        }
+        Box result = null;
+        Box square = this;
+        for (int i = 0; i < n.bitLength(); i++) {
+            if (n.testBit(i)) {
+                result = result == null ? square : result.mul(square);
+            }
+            if (i + 1 < n.bitLength()) {
+                square = square.square();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate this box as a number in exact long arithmetic. A polynumber
+     * is evaluated at α = alpha[0] and a multinumber with α_k = alpha[k].
+     * No intermediate boxes are formed.
+     * @param alpha The values of the variables
+     * @return The value of this box
+     * @throws ArithmeticException if the value overflows a long
+     * @throws IllegalArgumentException if this box is not a natural number,
+     * polynumber or multinumber, or a variable has no value
+     */
+    default long evalLong(long... alpha) {
+        var values = new Long[alpha.length];
+        Arrays.setAll(values, k -> alpha[k]);
+        return Evaluator.EXACT.evaluate(this, values);
+    }
+
+    /**
+     * Evaluate this box as a BigInteger, see evalLong.
+     * @param alpha The values of the variables
+     * @return The value of this box
+     */
+    default BigInteger evalBigInteger(BigInteger... alpha) {
+        return Evaluator.BIG.evaluate(this, alpha);
+    }
+
+    /**
+     * Evaluate this box in floating point, see evalLong.
+     * @param alpha The values of the variables
+     * @return The value of this box
+     */
+    default double evalDouble(double... alpha) {
+        var values = new Double[alpha.length];
+        Arrays.setAll(values, k -> alpha[k]);
+        return Evaluator.DOUBLE.evaluate(this, values);
+    }
+
+    /**
+     * Evaluate this box modulo m, see evalLong.
+     * @param m The modulus
+     * @param alpha The values of the variables
+     * @return The value of this box, from 0 to m - 1
+     */
+    default long evalMod(long m, long... alpha) {
+        var arithmetic = Evaluator.modulo(m);
+        var values = new Long[alpha.length];
+        Arrays.setAll(values, k -> arithmetic.of(alpha[k]));
+        return arithmetic.evaluate(this, values);
+    }
+
+    /**
+     * Evaluate this polynumber at each of a set of points, see
+     * evalBigInteger. The coefficients of a polynumber are found once and
+     * shared between the points.
+     * @param points The values of α
+     * @return The value at each point
+     */
+    default BigInteger[] evalAll(BigInteger... points) {
+        return Interpolation.evaluate(this, points);
+    }
+
+    /**
+     * Evaluate this polynumber at each of a set of points, see
+     * evalAll(BigInteger...).
+     * @param points The values of α
+     * @return The value at each point
+     */
+    default BigInteger[] evalAll(long... points) {
+        var values = new BigInteger[points.length];
+        Arrays.setAll(values, i -> BigInteger.valueOf(points[i]));
+        return evalAll(values);
+    }
+
+    /**
+     * The derivative of this polynumber, its first subderivative.
+     * @return the derivative
+     * @throws IllegalArgumentException if this box is not a polynumber
+     */
+    default Box derivative() {
+        return subderivative(1);
+    }
+
+    /**
+     * The k-th subderivative of this polynumber p, the coefficient of β^k
+     * in p(α + β). This is the k-th derivative divided by k!, so the term
+     * cα^n becomes C(n, k) c α^(n-k).
+     * @param k The order
+     * @return the k-th subderivative
+     * @throws IllegalArgumentException if k is negative or this box is not
+     * a polynumber
+     */
+    default Box subderivative(int k) {
+        return AlgebraicCalculus.subderivative(this, k);
+    }
+
+    /**
+     * The Taylor shift p(α + c) of this polynumber p, formed from its
+     * coefficients. The same polynumber is found by eval with the box
+     * α + c, which expands each power separately.
+     * @param c The shift
+     * @return p(α + c)
+     * @throws IllegalArgumentException if this box is not a polynumber
+     */
+    default Box shift(BigInteger c) {
+        return AlgebraicCalculus.shift(this, c);
+    }
+
+    /**
+     * The Taylor shift p(α + c) of this polynumber p, see shift(BigInteger).
+     * @param c The shift
+     * @return p(α + c)
+     */
+    default Box shift(long c) {
+        return shift(BigInteger.valueOf(c));
+    }
+
+    /**
+     * Divide this polynumber by another, so that this = quotient × divisor
+     * + remainder with the degree of the remainder less than that of the
+     * divisor. A long quotient is found by Newton iteration with fast
+     * multiplication.
+     * @param divisor The divisor, whose leading coefficient is 1 or -1,
+     * or which divides this polynumber over the rationals with an integer
+     * quotient
+     * @return the quotient and the remainder, each a polynumber or a
+     * VirtualBox
+     * @throws IllegalArgumentException if this box or divisor is not a
+     * polynumber
+     * @throws ArithmeticException if divisor is 0, or the quotient does
+     * not have integer coefficients
+     */
+    default Box[] divideAndRemainder(Box divisor) {
+        return PolynomialDivision.divide(this, divisor);
+    }
+
+    /**
+     * The quotient of this polynumber and another, see divideAndRemainder.
+     * @param divisor The divisor
+     * @return the quotient
+     */
+    default Box divide(Box divisor) {
+        return divideAndRemainder(divisor)[0];
+    }
+
+    /**
+     * The remainder of this polynumber divided by another, see
+     * divideAndRemainder.
+     * @param divisor The divisor
+     * @return the remainder
+     */
+    default Box remainder(Box divisor) {
+        return divideAndRemainder(divisor)[1];
     }
 
     /**
@@ -100,46 +307,45 @@ public interface Box extends Comparable<Box>, Cloneable, Iterable<Box> {
     public String toIntegerString();
 
     /**
-     * Compare this Box to another Box. MSEts are ordered by size. 
-     * To distinguish possible duplicates the hashCode is used.
-     * Two Boxs are never considered equal by this method.
+     * Compare this Box to another Box. MSEts are ordered by size, then
+     * by height, and then lexicographically by their sorted contents.
+     * VirtualBoxes are placed after all other Boxs. The order is
+     * consistent with equals and does not vary from run to run.
      * @param other The other Box
-     * @return -1 if this Box is less than other and +1 if greater.
+     * @return -1 if this Box is less than other, 0 if they are equal,
+     * and +1 if greater.
      */
     @Override
     default public int compareTo(Box other) {
-        int compareSize = Integer.compare(this.intSize(), other.intSize());
-        if (compareSize != 0) {
-            return compareSize;
-        } else {
-            return Integer.compare(this.hashCode(), other.hashCode());
-        }
+        return Integer.signum(BoxOrder.compare(this, other));
     }
   
     
     /**
-     * Construct an Box from an array of Boxes
+     * Construct an Box from an array of Boxes. Equal boxes constructed
+     * this way are the same instance.
      * @param boxes The list of Boxes
      * @return The resulting Box
      */
     public static Box of(Box... boxes) {
         if (boxes == null || boxes.length == 0) {
-            return new EmptyBox();
+            return EmptyBox.ZERO;
         } else {
-            return new NonEmptyBox(boxes);
+            return NonEmptyBox.of(Arrays.asList(boxes));
         }
     }
 
     /**
-     * Construct an Box from a list of Boxes
+     * Construct an Box from a list of Boxes. Equal boxes constructed
+     * this way are the same instance.
      * @param boxes The list of Boxs
      * @return The resulting Box
      */
     public static Box of(List<Box> boxes) {
         if (boxes == null || boxes.isEmpty()) {
-            return new EmptyBox();
+            return EmptyBox.ZERO;
         } else {
-            return new NonEmptyBox(boxes);
+            return NonEmptyBox.of(boxes);
         }
     }
 
@@ -151,18 +357,30 @@ public interface Box extends Comparable<Box>, Cloneable, Iterable<Box> {
      * @return 
      */
     public static Box of(int n) {
+        return of((long) n);
+    }
+
+    /**
+     * Construct an Box that represents an integer. The integer n is 
+     * represented by an Box containing n empty Boxes. If n is negative
+     * the resulting Box contains a VirtualBox
+     * @param n
+     * @return 
+     */
+    public static Box of(long n) {
         if (n == 0) {
-            return new EmptyBox();
+            return EmptyBox.ZERO;
         } else if (n > 0) {
-            return new NonEmptyBox(n);
+            return NaturalBox.of(n);
         } else {
-            return new VirtualBox(Box.of(0), new NonEmptyBox(-n));
+            return new VirtualBox(Box.of(0), NaturalBox.of(Math.negateExact(n)));
         }
     }
 
    /**
-    * Make a deep copy of this Box.
-    * @return A deep copy of this Box.
+    * Make a copy of this Box. Boxes are immutable, so the copy may be
+    * this Box itself.
+    * @return A copy of this Box.
     */
     Box clone();
 
@@ -205,6 +423,29 @@ public interface Box extends Comparable<Box>, Cloneable, Iterable<Box> {
      * @return this times other
      */
     Box mul(Box other);
+
+    /**
+     * Return the product of this Box and another without the elements of
+     * degree greater than maxDegree. The degree of an element is its size,
+     * so for polynumbers this is the product of power series up to
+     * α^maxDegree, and for multinumbers the terms of total degree at most
+     * maxDegree. Pairs of elements whose degrees add to more than
+     * maxDegree are not formed.
+     * @param other The other Box.
+     * @param maxDegree The largest degree kept
+     * @return this times other, truncated
+     * @throws IllegalArgumentException if maxDegree is negative
+     */
+    Box mulTruncated(Box other, int maxDegree);
+
+    /**
+     * Return the product of this Box and itself. Implementations use the
+     * symmetry of the product to form each unordered pair of elements once.
+     * @return this times this
+     */
+    default Box square() {
+        return mul(this);
+    }
     /**
      * Return a new Box that is the product of this Box an another EmptyBox.
      * @param other The other EmptyBox.
@@ -233,29 +474,34 @@ public interface Box extends Comparable<Box>, Cloneable, Iterable<Box> {
 
     /**
      * Compute the sum of an array of Boxs. The result is the combination
-     * of the contents of the input Boxs. 
+     * of the contents of the input Boxs. The smallest Boxs are added
+     * first, see BalancedReduction.
      * @param boxes An array of Boxs.
      * @return The sum of the Boxs.
      */
     public static Box add(Box... boxes) {
-        switch (boxes.length) {
-            case 0 -> {
-                return new EmptyBox();
-            }
-            case 1 -> {
-                return boxes[0];
-            }
-            default -> {
-                var x = boxes[0];
-                var y = boxes[1];
-                var z = x.add(y);
-                for (int i = 2; i < boxes.length; i++) {
-                    z = z.add(boxes[i]);
-                }
-                return z;               
-            }
-
+        if (boxes.length == 0) {
+            return EmptyBox.ZERO;
         }
+        return BalancedReduction.reduce(boxes, (x, y) -> x.add(y));
+    }
+
+    /**
+     * Compute the sum of a collection of Boxs, see add(Box...).
+     * @param boxes The Boxs
+     * @return The sum of the Boxs.
+     */
+    public static Box add(Collection<? extends Box> boxes) {
+        return add(boxes.toArray(new Box[boxes.size()]));
+    }
+
+    /**
+     * Compute the sum of a stream of Boxs, see add(Box...).
+     * @param boxes The Boxs
+     * @return The sum of the Boxs.
+     */
+    public static Box add(Stream<? extends Box> boxes) {
+        return add(boxes.toArray(Box[]::new));
     }
 
 
@@ -271,30 +517,53 @@ public interface Box extends Comparable<Box>, Cloneable, Iterable<Box> {
     }
 
     /**
-     * Compute the product of an array of Boxs. The product is formed
-     * by taking the first two and forming their product. Each subsequent
-     * Box is then multiplied by the result.
+     * Compute the product of an array of Boxs. The two smallest Boxs are
+     * always multiplied first, so that a large product is not multiplied
+     * by many small Boxs in turn, see BalancedReduction.
      * @param boxes A list of Boxs
      * @return The product of the Boxs.
      */
     public static Box mul(Box... boxes) {
-        switch (boxes.length) {
-            case 0 -> {
-                return Box.of(0);
-            }
-            case 1 -> {
-                return boxes[0];
-            }
-            default -> {
-                var x = boxes[0];
-                var y = boxes[1];
-                var z = x.mul(y);
-                for (int i = 2; i < boxes.length; i++) {
-                    z = z.mul(boxes[i]);
-                }
-                return z;
-            }
+        if (boxes.length == 0) {
+            return Box.of(0);
         }
+        return BalancedReduction.reduce(boxes, (x, y) -> x.mul(y));
+    }
+
+    /**
+     * Compute the product of an array of Boxs without the elements of
+     * degree greater than maxDegree, see mulTruncated(Box, int). Each
+     * partial product is truncated, so no product larger than the result
+     * is formed.
+     * @param maxDegree The largest degree kept
+     * @param boxes The Boxs
+     * @return The truncated product of the Boxs.
+     * @throws IllegalArgumentException if maxDegree is negative
+     */
+    public static Box mulTruncated(int maxDegree, Box... boxes) {
+        return switch (boxes.length) {
+            case 0 -> Box.of(0);
+            case 1 -> boxes[0].mulTruncated(Box.of(1), maxDegree);
+            default -> BalancedReduction.reduce(boxes, (x, y) -> x.mulTruncated(y, maxDegree));
+        };
+    }
+
+    /**
+     * Compute the product of a collection of Boxs, see mul(Box...).
+     * @param boxes The Boxs
+     * @return The product of the Boxs.
+     */
+    public static Box mul(Collection<? extends Box> boxes) {
+        return mul(boxes.toArray(new Box[boxes.size()]));
+    }
+
+    /**
+     * Compute the product of a stream of Boxs, see mul(Box...).
+     * @param boxes The Boxs
+     * @return The product of the Boxs.
+     */
+    public static Box mul(Stream<? extends Box> boxes) {
+        return mul(boxes.toArray(Box[]::new));
     }
 
     /**
@@ -325,7 +594,8 @@ public interface Box extends Comparable<Box>, Cloneable, Iterable<Box> {
     
     /** *  Convert an integer String representation of an Box into an Box
         An Box is a list of Boxs enclosed within '[' and ']'.An integer 
-   <i>n</i> represents <i>n</i> empty Boxs. If <i>n</i> is negative
+   <i>n</i> represents <i>n</i> empty Boxs, held as a NaturalBox so that
+   large numbers are not expanded. If <i>n</i> is negative
      * @param s The String to be parsed
      * @param k The index one passed the opening '['
      * @param result The list containing the result to date.
@@ -340,7 +610,7 @@ public interface Box extends Comparable<Box>, Cloneable, Iterable<Box> {
                             result.add(Box.of(list));
                     }
                     case '-' -> {
-                        var i = -parseInt(s, k+1);
+                        var i = -parseLong(s, k+1);
                         c = s.charAt(++k);
                         while (Character.isDigit(c)) {
                             c = s.charAt(++k);
@@ -349,7 +619,7 @@ public interface Box extends Comparable<Box>, Cloneable, Iterable<Box> {
                         --k;
                     }
                     case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> {
-                        int i = parseInt(s,k);
+                        long i = parseLong(s,k);
                         c = s.charAt(k);
                         while (Character.isDigit(c)) {
                             c = s.charAt(++k);
@@ -364,11 +634,11 @@ public interface Box extends Comparable<Box>, Cloneable, Iterable<Box> {
         return k;
     }
     
-    private static int parseInt(String s, int k) {
-        int n = 0;
+    private static long parseLong(String s, int k) {
+        long n = 0;
         for (char c = s.charAt(k); Character.isDigit(c); c=s.charAt(++k)) {
-            n = n * 10;
-            n = n + (c - '0');
+            n = Math.multiplyExact(n, 10);
+            n = Math.addExact(n, c - '0');
         }
         return n;
     }
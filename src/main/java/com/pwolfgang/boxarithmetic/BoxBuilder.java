@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * A mutable sum of boxes. The multiplicity of each distinct element is
+ * kept in a hash table and updated in place, so adding k boxes takes time
+ * proportional to their total number of distinct elements; the elements
+ * are sorted once, when the sum is built. Repeated use of Box.add instead
+ * merges every box into an ever larger sum.
+ * <p>
+ * A VirtualBox is added by adding its left box to this sum and its right
+ * box to a second sum that is subtracted. A BoxBuilder is not safe for use
+ * by more than one thread.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public final class BoxBuilder {
+
+    /** The multiplicity of each distinct element. */
+    private final HashMap<Box, Count> counts = new HashMap<>();
+
+    /** The sum that is subtracted, formed when first needed. */
+    private BoxBuilder negative;
+
+    /**
+     * Add a box to this sum.
+     * @param box The box
+     * @return this BoxBuilder
+     */
+    public BoxBuilder add(Box box) {
+        return add(box, 1);
+    }
+
+    /**
+     * Add a number of copies of a box to this sum.
+     * @param box The box
+     * @param count The number of copies, which may be negative to
+     * subtract the box
+     * @return this BoxBuilder
+     */
+    public BoxBuilder add(Box box, long count) {
+        if (count == 0) {
+            return this;
+        }
+        if (count < 0) {
+            return add(new VirtualBox(EmptyBox.ZERO, box), Math.negateExact(count));
+        }
+        switch (box) {
+            case VirtualBox v -> {
+                add(v.left(), count);
+                negative().add(v.right(), count);
+            }
+            case AbstractBox a -> {
+                for (int i = 0; i < a.distinctSize(); i++) {
+                    if (a.isBig()) {
+                        count(a.distinct(i)).add(a.bigMultiplicity(i).multiply(BigInteger.valueOf(count)));
+                    } else {
+                        count(a.distinct(i)).add(a.multiplicity(i), count);
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Cannot add " + box);
+        }
+        return this;
+    }
+
+    /**
+     * Add a number of copies of a box to this sum.
+     * @param box The box
+     * @param count The number of copies, which may be negative to
+     * subtract the box
+     * @return this BoxBuilder
+     */
+    public BoxBuilder add(Box box, BigInteger count) {
+        if (count.bitLength() < Long.SIZE) {
+            return add(box, count.longValue());
+        }
+        if (count.signum() < 0) {
+            return add(new VirtualBox(EmptyBox.ZERO, box), count.negate());
+        }
+        switch (box) {
+            case VirtualBox v -> {
+                add(v.left(), count);
+                negative().add(v.right(), count);
+            }
+            case AbstractBox a -> {
+                for (int i = 0; i < a.distinctSize(); i++) {
+                    count(a.distinct(i)).add(a.bigMultiplicity(i).multiply(count));
+                }
+            }
+            default -> throw new IllegalArgumentException("Cannot add " + box);
+        }
+        return this;
+    }
+
+    /**
+     * Add each of a collection of boxes to this sum.
+     * @param boxes The boxes
+     * @return this BoxBuilder
+     */
+    public BoxBuilder addAll(Collection<? extends Box> boxes) {
+        for (var box : boxes) {
+            add(box);
+        }
+        return this;
+    }
+
+    /**
+     * Add the product of two boxes to this sum. The sums of the pairs of
+     * distinct elements of two general boxes are added directly, without
+     * forming the product. Natural numbers, polynumbers and multinumbers
+     * are multiplied by their own methods, which are faster.
+     * @param x One box
+     * @param y The other box
+     * @return this BoxBuilder
+     */
+    public BoxBuilder mulAccumulate(Box x, Box y) {
+        if (x instanceof VirtualBox v) {
+            mulAccumulate(v.left(), y);
+            negative().mulAccumulate(v.right(), y);
+            return this;
+        }
+        if (y instanceof VirtualBox v) {
+            mulAccumulate(x, v.left());
+            negative().mulAccumulate(x, v.right());
+            return this;
+        }
+        if ((x instanceof NonEmptyBox || y instanceof NonEmptyBox)
+                && x instanceof AbstractBox a && y instanceof AbstractBox b
+                && !a.isBig() && !b.isBig()) {
+            for (int i = 0; i < a.distinctSize(); i++) {
+                var ai = a.distinct(i);
+                long mi = a.multiplicity(i);
+                for (int j = 0; j < b.distinctSize(); j++) {
+                    count(ai.add(b.distinct(j))).add(mi, b.multiplicity(j));
+                }
+            }
+            return this;
+        }
+        return add(x.mul(y));
+    }
+
+    /**
+     * Form the canonical box equal to this sum. This BoxBuilder is not
+     * changed and may be used further.
+     * @return The sum
+     */
+    public Box build() {
+        var positive = sum();
+        if (negative == null || negative.counts.isEmpty()) {
+            return positive;
+        }
+        return new VirtualBox(positive, negative.build());
+    }
+
+    /**
+     * The box with the counted elements. If any count has become a
+     * BigInteger all of the counts are passed as BigIntegers.
+     */
+    private Box sum() {
+        int n = counts.size();
+        var boxs = new Box[n];
+        var multiplicities = new long[n];
+        BigInteger[] bigMultiplicities = null;
+        int k = 0;
+        for (var entry : counts.entrySet()) {
+            var count = entry.getValue();
+            if (count.big != null && bigMultiplicities == null) {
+                bigMultiplicities = new BigInteger[n];
+                for (int i = 0; i < k; i++) {
+                    bigMultiplicities[i] = BigInteger.valueOf(multiplicities[i]);
+                }
+            }
+            boxs[k] = entry.getKey();
+            if (bigMultiplicities != null) {
+                bigMultiplicities[k] = count.big != null ? count.big : BigInteger.valueOf(count.small);
+            } else {
+                multiplicities[k] = count.small;
+            }
+            k++;
+        }
+        return bigMultiplicities != null ? NonEmptyBox.of(boxs, bigMultiplicities, k)
+                : NonEmptyBox.of(boxs, multiplicities, k);
+    }
+
+    private BoxBuilder negative() {
+        if (negative == null) {
+            negative = new BoxBuilder();
+        }
+        return negative;
+    }
+
+    private Count count(Box element) {
+        return counts.computeIfAbsent(element, e -> new Count());
+    }
+
+    /**
+     * A multiplicity, held in a long until it no longer fits.
+     */
+    private static final class Count {
+
+        long small;
+        BigInteger big;
+
+        /**
+         * Add the product of two multiplicities.
+         */
+        void add(long x, long y) {
+            long high = Math.multiplyHigh(x, y);
+            long low = x * y;
+            if (big == null && high == 0 && low >= 0) {
+                long sum = small + low;
+                if (sum >= 0) {
+                    small = sum;
+                    return;
+                }
+            }
+            add(BigInteger.valueOf(x).multiply(BigInteger.valueOf(y)));
+        }
+
+        void add(BigInteger n) {
+            big = (big == null ? BigInteger.valueOf(small) : big).add(n);
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The table of canonical boxes. Boxes are immutable, so two boxes that
+ * are structurally equal can be replaced by a single shared instance. The
+ * table holds its entries weakly so that boxes no longer in use can still
+ * be garbage collected.
+ * <p>
+ * The table is a ConcurrentHashMap, so threads that form boxes at the same
+ * time do not wait for each other. The entries of boxes that have been
+ * collected are removed when the next box is interned.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+final class BoxInterner {
+
+    private static final ConcurrentHashMap<Entry, Entry> table = new ConcurrentHashMap<>();
+
+    /** The entries whose boxes have been collected. */
+    private static final ReferenceQueue<Box> collected = new ReferenceQueue<>();
+
+    private BoxInterner() {}
+
+    /**
+     * Return the canonical instance of a box. If an equal box is already
+     * in the table that box is returned, otherwise box becomes the canonical
+     * instance.
+     * @param box The box to be interned
+     * @return The canonical box equal to box
+     */
+    static Box intern(Box box) {
+        expunge();
+        var entry = table.get(new Entry(box, null));
+        var canonical = entry != null ? entry.get() : null;
+        if (canonical != null) {
+            return canonical;
+        }
+        var added = new Entry(box, collected);
+        while (true) {
+            entry = table.putIfAbsent(added, added);
+            if (entry == null) {
+                return box;
+            }
+            canonical = entry.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            table.remove(entry, entry);
+        }
+    }
+
+    /**
+     * Return the number of canonical boxes currently held.
+     * @return the number of entries in the table
+     */
+    static int size() {
+        expunge();
+        return table.size();
+    }
+
+    private static void expunge() {
+        for (var ref = collected.poll(); ref != null; ref = collected.poll()) {
+            table.remove(ref, ref);
+        }
+    }
+
+    /**
+     * A weak reference to a box that is equal to another entry when their
+     * boxes are equal. An entry whose box has been collected is equal only
+     * to itself.
+     */
+    private static final class Entry extends WeakReference<Box> {
+
+        private final int hash;
+
+        Entry(Box box, ReferenceQueue<Box> queue) {
+            super(box, queue);
+            hash = box.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry other) || hash != other.hash) {
+                return false;
+            }
+            var box = get();
+            return box != null && box.equals(other.get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
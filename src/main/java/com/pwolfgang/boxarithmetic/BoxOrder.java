@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+
+/**
+ * The structural total order on boxes. Boxes are ordered by size, then by
+ * height, and then lexicographically by their sorted contents. VirtualBoxes
+ * follow all other boxes and are ordered by their reduced left and right
+ * boxes. Two boxes compare as 0 exactly when they are equal.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+final class BoxOrder {
+
+    private BoxOrder() {}
+
+    /**
+     * Compare two boxes.
+     * @param x One box
+     * @param y The other box
+     * @return a negative number, zero, or a positive number as x is less
+     * than, equal to, or greater than y.
+     */
+    static int compare(Box x, Box y) {
+        if (x == y) {
+            return 0;
+        }
+        boolean xVirtual = x instanceof VirtualBox;
+        boolean yVirtual = y instanceof VirtualBox;
+        if (xVirtual || yVirtual) {
+            if (xVirtual && yVirtual) {
+                return ((VirtualBox) x).compareVirtual((VirtualBox) y);
+            }
+            return xVirtual ? 1 : -1;
+        }
+        int result = compareSize(x, y);
+        if (result != 0) {
+            return result;
+        }
+        result = Integer.compare(x.getHeight(), y.getHeight());
+        if (result != 0 || x.isEmptyBox()) {
+            return result;
+        }
+        if (x instanceof NaturalBox && y instanceof NaturalBox) {
+            return 0;
+        }
+        return compareContents((AbstractBox) x, (AbstractBox) y);
+    }
+
+    private static int compareSize(Box x, Box y) {
+        if (isBig(x) || isBig(y)) {
+            return bigSize(x).compareTo(bigSize(y));
+        }
+        return Long.compare(size(x), size(y));
+    }
+
+    private static boolean isBig(Box x) {
+        return x instanceof AbstractBox a && a.isBig();
+    }
+
+    private static BigInteger bigSize(Box x) {
+        if (x instanceof AbstractBox a) {
+            return a.bigTotal();
+        }
+        return BigInteger.valueOf(size(x));
+    }
+
+    /**
+     * The number of elements of a box.
+     * @param x The box
+     * @return the size of x as a long
+     */
+    static long size(Box x) {
+        if (x instanceof AbstractBox a) {
+            return a.total();
+        }
+        return x.intSize();
+    }
+
+    /**
+     * Compare the sorted contents of two boxes of the same size
+     * lexicographically. When the same element occurs a different number
+     * of times the box with fewer copies is greater, since its next
+     * element is larger than the repeated one.
+     */
+    private static int compareContents(AbstractBox x, AbstractBox y) {
+        int n = Math.min(x.distinctSize(), y.distinctSize());
+        boolean big = x.isBig() || y.isBig();
+        for (int i = 0; i < n; i++) {
+            int result = compare(x.distinct(i), y.distinct(i));
+            if (result != 0) {
+                return result;
+            }
+            result = big ? y.bigMultiplicity(i).compareTo(x.bigMultiplicity(i))
+                    : Long.compare(y.multiplicity(i), x.multiplicity(i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(x.distinctSize(), y.distinctSize());
+    }
+
+}
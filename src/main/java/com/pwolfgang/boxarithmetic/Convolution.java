@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * The product of two coefficient arrays. Coefficient k of the result is the
+ * sum of a[i]·b[j] over all i + j = k, which is the coefficient of α^k in
+ * the product of the polynumbers.
+ * <p>
+ * Short arrays are multiplied by the schoolbook method. Above a threshold
+ * Karatsuba's method is used, and above a second threshold Toom-Cook 3-way
+ * multiplication. Very long arrays are multiplied by the number-theoretic
+ * transform, see NumberTheoreticTransform. The thresholds, the length of the
+ * shorter array, can be set with the system properties
+ * boxarithmetic.karatsuba.threshold, boxarithmetic.toom3.threshold and
+ * boxarithmetic.ntt.threshold.
+ * <p>
+ * An array multiplied by itself is squared, which uses the symmetry of the
+ * product: the schoolbook method forms each pair of distinct coefficients
+ * once and doubles it, and the other methods square their parts in place
+ * of multiplying them and transform the array only once.
+ * <p>
+ * BigInteger coefficients are multiplied by the schoolbook method, or by the
+ * number-theoretic transform from the Karatsuba threshold on.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+final class Convolution {
+
+    private static volatile int karatsubaThreshold
+            = Integer.getInteger("boxarithmetic.karatsuba.threshold", 48);
+
+    private static volatile int toom3Threshold
+            = Integer.getInteger("boxarithmetic.toom3.threshold", 256);
+
+    private static volatile int nttThreshold
+            = Integer.getInteger("boxarithmetic.ntt.threshold", 16384);
+
+    /**
+     * The number of bits of headroom needed by Toom-Cook multiplication,
+     * whose evaluated coefficients are up to 7 times as large and whose
+     * interpolation doubles them again.
+     */
+    private static final int TOOM3_HEADROOM = 8;
+
+    private Convolution() {}
+
+    /**
+     * Set the length at which Karatsuba multiplication replaces the
+     * schoolbook method.
+     * @param n The threshold, at least 2
+     */
+    static void setKaratsubaThreshold(int n) {
+        karatsubaThreshold = Math.max(2, n);
+    }
+
+    /**
+     * Set the length at which Toom-Cook 3-way multiplication replaces
+     * Karatsuba multiplication.
+     * @param n The threshold, at least 3
+     */
+    static void setToom3Threshold(int n) {
+        toom3Threshold = Math.max(3, n);
+    }
+
+    /**
+     * Set the length at which the number-theoretic transform replaces
+     * Toom-Cook multiplication.
+     * @param n The threshold, at least 2
+     */
+    static void setNttThreshold(int n) {
+        nttThreshold = Math.max(2, n);
+    }
+
+    static int karatsubaThreshold() {
+        return karatsubaThreshold;
+    }
+
+    static int toom3Threshold() {
+        return toom3Threshold;
+    }
+
+    static int nttThreshold() {
+        return nttThreshold;
+    }
+
+    /**
+     * Determine if the product of two coefficient arrays can be computed
+     * in long arithmetic. Each coefficient of the product is a sum of at
+     * most min(a.length, b.length) products, so it is bounded by that
+     * number times the largest coefficients of a and b.
+     * @param a One coefficient array
+     * @param b The other coefficient array
+     * @return true if no coefficient of the product can overflow a long
+     */
+    static boolean fitsLong(long[] a, long[] b) {
+        return fitsLong(a, b, 0);
+    }
+
+    private static long maxAbs(long[] a) {
+        long max = 0;
+        for (long x : a) {
+            if (x == Long.MIN_VALUE) {
+                return Long.MIN_VALUE;
+            }
+            max = Math.max(max, Math.abs(x));
+        }
+        return max;
+    }
+
+    private static int bitLength(long x) {
+        return 64 - Long.numberOfLeadingZeros(x);
+    }
+
+    /** The number of bits of the largest coefficient, not counting the sign. */
+    private static int bitLength(BigInteger[] a) {
+        int bits = 0;
+        for (var x : a) {
+            bits = Math.max(bits, x.abs().bitLength());
+        }
+        return bits;
+    }
+
+    /**
+     * Multiply two coefficient arrays. The arithmetic is that of long, so
+     * the product is exact modulo 2^64; the caller must ensure that the
+     * result fits, see fitsLong.
+     * @param a One coefficient array
+     * @param b The other coefficient array
+     * @return The coefficients of the product
+     */
+    static long[] multiply(long[] a, long[] b) {
+        if (a.length < b.length) {
+            var t = a;
+            a = b;
+            b = t;
+        }
+        int n = b.length;
+        if (n == 0) {
+            return new long[0];
+        }
+        if (n < karatsubaThreshold) {
+            return a == b ? squareSchoolbook(a) : schoolbook(a, b);
+        }
+        if (n >= nttThreshold && a.length + n - 1 <= NumberTheoreticTransform.maxLength()) {
+            int bits = bitLength(maxAbs(a)) + bitLength(maxAbs(b)) + bitLength(n);
+            return NumberTheoreticTransform.multiply(a, b, NumberTheoreticTransform.primesFor(bits));
+        }
+        if (a.length > n) {
+            var result = new long[a.length + n - 1];
+            for (int i = 0; i < a.length; i += n) {
+                addInto(result, i, multiply(Arrays.copyOfRange(a, i, Math.min(i + n, a.length)), b));
+            }
+            return result;
+        }
+        if (n >= toom3Threshold && fitsLong(a, b, TOOM3_HEADROOM)) {
+            return toom3(a, b);
+        }
+        return karatsuba(a, b);
+    }
+
+    private static boolean fitsLong(long[] a, long[] b, int headroom) {
+        int bits = bitLength(maxAbs(a)) + bitLength(maxAbs(b))
+                + bitLength(Math.min(a.length, b.length));
+        return bits + headroom <= 62;
+    }
+
+    /**
+     * The schoolbook square, in which each product a[i]·a[j] with i &lt; j
+     * is formed once and doubled.
+     */
+    private static long[] squareSchoolbook(long[] a) {
+        var result = new long[2 * a.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            long x = a[i];
+            if (x == 0) {
+                continue;
+            }
+            for (int j = i + 1; j < a.length; j++) {
+                result[i + j] += x * a[j];
+            }
+        }
+        for (int i = 0; i < result.length; i++) {
+            result[i] <<= 1;
+        }
+        for (int i = 0; i < a.length; i++) {
+            result[2 * i] += a[i] * a[i];
+        }
+        return result;
+    }
+
+    private static long[] schoolbook(long[] a, long[] b) {
+        var result = new long[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            long x = a[i];
+            if (x == 0) {
+                continue;
+            }
+            for (int j = 0; j < b.length; j++) {
+                result[i + j] += x * b[j];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Karatsuba multiplication of two arrays of the same length. With
+     * a = a0 + a1·x and b = b0 + b1·x, the middle coefficient a0·b1 + a1·b0
+     * is (a0 + a1)(b0 + b1) - a0·b0 - a1·b1, so three half-length products
+     * replace four. The identity holds in long arithmetic even if an
+     * intermediate sum overflows.
+     */
+    private static long[] karatsuba(long[] a, long[] b) {
+        int n = a.length;
+        int m = n / 2;
+        var a0 = Arrays.copyOfRange(a, 0, m);
+        var a1 = Arrays.copyOfRange(a, m, n);
+        var b0 = a == b ? a0 : Arrays.copyOfRange(b, 0, m);
+        var b1 = a == b ? a1 : Arrays.copyOfRange(b, m, n);
+        var z0 = multiply(a0, b0);
+        var z2 = multiply(a1, b1);
+        var s = sum(a1, a0);
+        var z1 = multiply(s, a == b ? s : sum(b1, b0));
+        subtractFrom(z1, z0);
+        subtractFrom(z1, z2);
+        var result = new long[2 * n - 1];
+        addInto(result, 0, z0);
+        addInto(result, m, z1);
+        addInto(result, 2 * m, z2);
+        return result;
+    }
+
+    /**
+     * Toom-Cook 3-way multiplication of two arrays of the same length. Each
+     * array is split into three parts, the parts are evaluated at 0, 1, -1,
+     * -2 and infinity, the five products are formed and the product is
+     * recovered by exact interpolation. The divisions of the interpolation
+     * are exact only if nothing overflows, so the caller must ensure that
+     * there is enough headroom.
+     */
+    private static long[] toom3(long[] a, long[] b) {
+        int n = a.length;
+        int k = (n + 2) / 3;
+        var pa = evaluate(a, k);
+        var pb = a == b ? pa : evaluate(b, k);
+        var r0 = multiply(pa[0], pb[0]);
+        var r1 = multiply(pa[1], pb[1]);
+        var rm1 = multiply(pa[2], pb[2]);
+        var rm2 = multiply(pa[3], pb[3]);
+        var rinf = multiply(pa[4], pb[4]);
+        int len = 2 * k - 1;
+        var c1 = new long[len];
+        var c2 = new long[len];
+        var c3 = new long[len];
+        for (int i = 0; i < len; i++) {
+            long v0 = at(r0, i);
+            long v1 = at(r1, i);
+            long vm1 = at(rm1, i);
+            long vm2 = at(rm2, i);
+            long vinf = at(rinf, i);
+            long t3 = (vm2 - v1) / 3;
+            long t1 = (v1 - vm1) / 2;
+            long t2 = vm1 - v0;
+            t3 = (t2 - t3) / 2 + 2 * vinf;
+            t2 = t2 + t1 - vinf;
+            t1 = t1 - t3;
+            c1[i] = t1;
+            c2[i] = t2;
+            c3[i] = t3;
+        }
+        var result = new long[2 * n - 1];
+        addInto(result, 0, r0);
+        addInto(result, k, c1);
+        addInto(result, 2 * k, c2);
+        addInto(result, 3 * k, c3);
+        addInto(result, 4 * k, rinf);
+        return result;
+    }
+
+    /**
+     * Split an array into three parts of length k and evaluate
+     * a0 + a1·x + a2·x² at 0, 1, -1, -2 and infinity.
+     */
+    private static long[][] evaluate(long[] a, int k) {
+        var p0 = new long[k];
+        var p1 = new long[k];
+        var pm1 = new long[k];
+        var pm2 = new long[k];
+        var pinf = Arrays.copyOfRange(a, Math.min(2 * k, a.length), a.length);
+        for (int i = 0; i < k; i++) {
+            long a0 = at(a, i);
+            long a1 = at(a, i + k);
+            long a2 = at(a, i + 2 * k);
+            p0[i] = a0;
+            p1[i] = a0 + a1 + a2;
+            pm1[i] = a0 - a1 + a2;
+            pm2[i] = a0 - 2 * a1 + 4 * a2;
+        }
+        return new long[][]{p0, p1, pm1, pm2, pinf};
+    }
+
+    private static long at(long[] a, int i) {
+        return i < a.length ? a[i] : 0;
+    }
+
+    /** The sum of two arrays, the first at least as long as the second. */
+    private static long[] sum(long[] longer, long[] shorter) {
+        var result = longer.clone();
+        for (int i = 0; i < shorter.length; i++) {
+            result[i] += shorter[i];
+        }
+        return result;
+    }
+
+    private static void subtractFrom(long[] a, long[] b) {
+        for (int i = 0; i < b.length && i < a.length; i++) {
+            a[i] -= b[i];
+        }
+    }
+
+    private static void addInto(long[] result, int offset, long[] a) {
+        for (int i = 0; i < a.length && offset + i < result.length; i++) {
+            result[offset + i] += a[i];
+        }
+    }
+
+    /**
+     * Multiply two coefficient arrays.
+     * @param a One coefficient array
+     * @param b The other coefficient array
+     * @return The coefficients of the product
+     */
+    static BigInteger[] multiply(BigInteger[] a, BigInteger[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return new BigInteger[0];
+        }
+        boolean square = a == b;
+        int n = Math.min(a.length, b.length);
+        if (n >= karatsubaThreshold && a.length + b.length - 1 <= NumberTheoreticTransform.maxLength()) {
+            int bits = bitLength(a) + bitLength(b) + bitLength(n);
+            int primes = NumberTheoreticTransform.primesFor(bits);
+            if (primes > 0) {
+                return NumberTheoreticTransform.multiply(a, b, primes);
+            }
+        }
+        var result = new BigInteger[a.length + b.length - 1];
+        Arrays.fill(result, BigInteger.ZERO);
+        for (int i = 0; i < a.length; i++) {
+            var x = a[i];
+            if (x.signum() == 0) {
+                continue;
+            }
+            if (square) {
+                result[2 * i] = result[2 * i].add(x.multiply(x));
+                var twice = x.shiftLeft(1);
+                for (int j = i + 1; j < b.length; j++) {
+                    if (b[j].signum() != 0) {
+                        result[i + j] = result[i + j].add(twice.multiply(b[j]));
+                    }
+                }
+                continue;
+            }
+            for (int j = 0; j < b.length; j++) {
+                if (b[j].signum() != 0) {
+                    result[i + j] = result[i + j].add(x.multiply(b[j]));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Convert a coefficient array to BigIntegers.
+     * @param a The coefficients
+     * @return The same coefficients as BigIntegers
+     */
+    static BigInteger[] toBig(long[] a) {
+        var result = new BigInteger[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = BigInteger.valueOf(a[i]);
+        }
+        return result;
+    }
+
+}
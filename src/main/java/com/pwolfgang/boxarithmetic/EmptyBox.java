@@ -17,17 +17,45 @@
  */
 package com.pwolfgang.boxarithmetic;
 
+import java.math.BigInteger;
+
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
- * This class models the empty mset.
+ * This class models the empty mset. There is only one empty box, the
+ * shared instance ZERO.
  * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
  */
-public class EmptyBox implements Box {
+public class EmptyBox extends AbstractBox {
+    
+    /** The empty box, which represents the number zero. */
+    public static final EmptyBox ZERO = new EmptyBox();
+    
+    private EmptyBox() {
+    }
+    
+    @Override
+    long total() {
+        return 0;
+    }
+    
+    @Override
+    int distinctSize() {
+        return 0;
+    }
+    
+    @Override
+    Box distinct(int i) {
+        throw new IndexOutOfBoundsException(i);
+    }
     
+    @Override
+    long multiplicity(int i) {
+        throw new IndexOutOfBoundsException(i);
+    }
     
     /**
      * {@inheritDoc}
@@ -39,11 +67,11 @@ public class EmptyBox implements Box {
     }
     
     public Box size() {
-        return new EmptyBox();
+        return ZERO;
     }
     
     public Box tB(Box b) {
-        return new EmptyBox();
+        return ZERO;
     }
     
     /**
@@ -75,11 +103,11 @@ public class EmptyBox implements Box {
     
     /**
      * {@inheritDoc}
-     * @return A new EmptyBox.
+     * @return The EmptyBox.
      */
     @Override
     public EmptyBox clone() {
-        return new EmptyBox();
+        return ZERO;
     }
        
     /**
@@ -108,18 +136,18 @@ The sum of two EmptyBoxs is and EmptyBox.
      */
     @Override
     public Box addEmptyBox(EmptyBox other) {
-        return new EmptyBox();
+        return ZERO;
     }
     
     
     /**
      * {@inheritDoc}
-The sum of an EmptyBox a NonEmptyBox is a copy of the NonEmptyBox.
+The sum of an EmptyBox a NonEmptyBox is the NonEmptyBox.
      * @return The sum of this Box and other
      */
     @Override
     public Box addNonEmptyBox(NonEmptyBox other) {
-        return other.clone();
+        return other;
     }
     
     /**
@@ -139,18 +167,37 @@ The product of a EmptyBox and an EmptyBox is an EmptyBox
      */
     @Override
     public Box mulEmptyBox(EmptyBox other) {
-        return new EmptyBox();
+        return ZERO;
     }
-        
+
     /**
      * {@inheritDoc}
-     * @return True if other is either an EmptyBox.
+     * Invokes mulEmptyBox on other, as mul does.
+     */
+    @Override
+    Box truncatedProduct(Box other, int maxDegree) {
+        return other.mulEmptyBox(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Since there is only one EmptyBox it is equal only to itself.
+     * @return True if other is the EmptyBox.
      */
     @Override
     public boolean equals(Object o) {
-        if (o == null) return false;
-        if (this == o) return true;
-        return (this.getClass() == o.getClass());
+        return this == o;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The hash code of a box is the sum of the contributions of its
+     * elements, so the empty box has hash code 0.
+     * @return 0
+     */
+    @Override
+    public int hashCode() {
+        return 0;
     }
     
     /**
@@ -173,7 +220,7 @@ The product of a EmptyBox and an EmptyBox is an EmptyBox
 
     @Override
     public Box mulNonEmptyBox(NonEmptyBox other) {
-        return new EmptyBox();
+        return ZERO;
     }
     
     @Override
@@ -183,11 +230,22 @@ The product of a EmptyBox and an EmptyBox is an EmptyBox
 
     @Override
     public Box eval(Box A) {
-        return new EmptyBox();
+        return ZERO;
     }
     
+    @Override
     public Box pow(Box n) {
-        return new EmptyBox();
+        return ZERO;
+    }
+
+    @Override
+    public Box pow(long n) {
+        return ZERO;
+    }
+
+    @Override
+    public Box pow(BigInteger n) {
+        return ZERO;
     }
     
 }
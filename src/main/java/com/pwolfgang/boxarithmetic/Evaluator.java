@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+
+/**
+ * Numeric evaluation of a box. A natural number is its value, a
+ * polynumber is evaluated at α = α₀, and a multinumber is evaluated with a
+ * value for each α_k; the element p of a multinumber is the monomial
+ * α₀^p₀ α₁^p₁ ... where p_k is the coefficient of α^k in p. A VirtualBox is
+ * the difference of its two boxes.
+ * <p>
+ * The box is walked once and the arithmetic is done on numbers, so no
+ * intermediate boxes are formed.
+ * @param <T> The type of the numbers
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+abstract class Evaluator<T> {
+
+    /** Exact long arithmetic, which throws ArithmeticException on overflow. */
+    static final Evaluator<Long> EXACT = new Evaluator<>() {
+        @Override
+        Long of(long n) {
+            return n;
+        }
+
+        @Override
+        Long of(BigInteger n) {
+            return n.longValueExact();
+        }
+
+        @Override
+        Long add(Long x, Long y) {
+            return Math.addExact(x, y);
+        }
+
+        @Override
+        Long subtract(Long x, Long y) {
+            return Math.subtractExact(x, y);
+        }
+
+        @Override
+        Long multiply(Long x, Long y) {
+            return Math.multiplyExact(x, y);
+        }
+    };
+
+    /** BigInteger arithmetic. */
+    static final Evaluator<BigInteger> BIG = new Evaluator<>() {
+        @Override
+        BigInteger of(long n) {
+            return BigInteger.valueOf(n);
+        }
+
+        @Override
+        BigInteger of(BigInteger n) {
+            return n;
+        }
+
+        @Override
+        BigInteger add(BigInteger x, BigInteger y) {
+            return x.add(y);
+        }
+
+        @Override
+        BigInteger subtract(BigInteger x, BigInteger y) {
+            return x.subtract(y);
+        }
+
+        @Override
+        BigInteger multiply(BigInteger x, BigInteger y) {
+            return x.multiply(y);
+        }
+
+        @Override
+        BigInteger power(BigInteger x, long n) {
+            if (x.abs().compareTo(BigInteger.ONE) <= 0) {
+                return super.power(x, n);
+            }
+            return x.pow(Math.toIntExact(n));
+        }
+    };
+
+    /** Floating point arithmetic. */
+    static final Evaluator<Double> DOUBLE = new Evaluator<>() {
+        @Override
+        Double of(long n) {
+            return (double) n;
+        }
+
+        @Override
+        Double of(BigInteger n) {
+            return n.doubleValue();
+        }
+
+        @Override
+        Double add(Double x, Double y) {
+            return x + y;
+        }
+
+        @Override
+        Double subtract(Double x, Double y) {
+            return x - y;
+        }
+
+        @Override
+        Double multiply(Double x, Double y) {
+            return x * y;
+        }
+
+        @Override
+        Double power(Double x, long n) {
+            return Math.pow(x, n);
+        }
+    };
+
+    /**
+     * Arithmetic modulo m. The values are in the range 0 to m - 1.
+     * @param m The modulus
+     * @return The evaluator
+     * @throws IllegalArgumentException if m is not positive
+     */
+    static Evaluator<Long> modulo(long m) {
+        if (m <= 0) {
+            throw new IllegalArgumentException("Modulus " + m + " is not positive");
+        }
+        var modulus = BigInteger.valueOf(m);
+        return new Evaluator<>() {
+            @Override
+            Long of(long n) {
+                return Math.floorMod(n, m);
+            }
+
+            @Override
+            Long of(BigInteger n) {
+                return n.mod(modulus).longValue();
+            }
+
+            @Override
+            Long add(Long x, Long y) {
+                long s = x - m + y;
+                return s < 0 ? s + m : s;
+            }
+
+            @Override
+            Long subtract(Long x, Long y) {
+                long d = x - y;
+                return d < 0 ? d + m : d;
+            }
+
+            @Override
+            Long multiply(Long x, Long y) {
+                if (m <= 1L << 31) {
+                    return x * y % m;
+                }
+                return BigInteger.valueOf(x).multiply(BigInteger.valueOf(y)).mod(modulus).longValue();
+            }
+        };
+    }
+
+    abstract T of(long n);
+
+    abstract T of(BigInteger n);
+
+    abstract T add(T x, T y);
+
+    abstract T subtract(T x, T y);
+
+    abstract T multiply(T x, T y);
+
+    /**
+     * Raise a number to a power by repeated squaring.
+     * @param x The number
+     * @param n The exponent, not negative
+     * @return x to the power n
+     */
+    T power(T x, long n) {
+        T result = of(1);
+        while (n > 0) {
+            if ((n & 1) != 0) {
+                result = multiply(result, x);
+            }
+            n >>>= 1;
+            if (n > 0) {
+                x = multiply(x, x);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The value of α_k.
+     * @throws IllegalArgumentException if no value is given
+     */
+    T alpha(T[] alpha, long k) {
+        if (k >= alpha.length) {
+            throw new IllegalArgumentException("No value for α" + k);
+        }
+        return alpha[(int) k];
+    }
+
+    /**
+     * Evaluate a box.
+     * @param box The box
+     * @param alpha The values of α₀, α₁, ...
+     * @return The value of the box
+     * @throws IllegalArgumentException if the box is not a natural number,
+     * polynumber or multinumber, or a VirtualBox of these
+     */
+    T evaluate(Box box, T[] alpha) {
+        return switch (box) {
+            case EmptyBox e -> of(0);
+            case NaturalBox n -> n.isBig() ? of(n.bigValue()) : of(n.longValue());
+            case VirtualBox v -> subtract(evaluate(v.left(), alpha), evaluate(v.right(), alpha));
+            case PolyNumber p -> evaluate(p, alpha);
+            case SparsePolyNumber s -> evaluate(s, alpha);
+            case MultiNumber m -> m.evaluate(this, alpha);
+            case AbstractBox a -> {
+                T result = of(0);
+                for (int i = 0; i < a.distinctSize(); i++) {
+                    T count = a.isBig() ? of(a.bigMultiplicity(i)) : of(a.multiplicity(i));
+                    result = add(result, multiply(count, monomial(a.distinct(i), alpha)));
+                }
+                yield result;
+            }
+            default -> throw new IllegalArgumentException("Cannot evaluate " + box);
+        };
+    }
+
+    /**
+     * Evaluate a dense polynumber by Horner's rule.
+     */
+    private T evaluate(PolyNumber p, T[] alpha) {
+        int d = p.degree();
+        if (d == 0) {
+            return of(p.coefficient(0));
+        }
+        T x = alpha(alpha, 0);
+        var coefficients = p.longCoefficients();
+        var bigCoefficients = coefficients == null ? p.bigCoefficients() : null;
+        T result = of(0);
+        for (int k = d; k >= 0; k--) {
+            result = add(multiply(result, x),
+                    coefficients != null ? of(coefficients[k]) : of(bigCoefficients[k]));
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate a sparse polynumber by Horner's rule, with the power of α
+     * for each gap formed by repeated squaring.
+     */
+    private T evaluate(SparsePolyNumber s, T[] alpha) {
+        var exponents = s.exponents();
+        T x = alpha(alpha, 0);
+        int n = exponents.length;
+        T result = of(s.bigMultiplicity(n - 1));
+        for (int i = n - 2; i >= 0; i--) {
+            result = add(multiply(result, power(x, exponents[i + 1] - exponents[i])),
+                    of(s.bigMultiplicity(i)));
+        }
+        return exponents[0] == 0 ? result : multiply(result, power(x, exponents[0]));
+    }
+
+    /**
+     * The value of the monomial for which an element of a box stands.
+     */
+    private T monomial(Box element, T[] alpha) {
+        return switch (element) {
+            case EmptyBox e -> of(1);
+            case NaturalBox n -> power(alpha(alpha, 0), n.bigValue().longValueExact());
+            case AbstractBox p -> {
+                T result = of(1);
+                for (int j = 0; j < p.distinctSize(); j++) {
+                    long k = variable(p.distinct(j));
+                    result = multiply(result, power(alpha(alpha, k), p.bigMultiplicity(j).longValueExact()));
+                }
+                yield result;
+            }
+            default -> throw new IllegalArgumentException("Cannot evaluate " + element);
+        };
+    }
+
+    /**
+     * The index of the variable for which an element of a polynumber
+     * stands.
+     */
+    private static long variable(Box element) {
+        return switch (element) {
+            case EmptyBox e -> 0;
+            case NaturalBox n -> n.bigValue().longValueExact();
+            default -> throw new IllegalArgumentException("Cannot evaluate " + element);
+        };
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * The product of two boxes formed in parallel. The distinct elements of
+ * the first box are split into blocks of rows; each block forms the sums
+ * of its elements with those of the other box and sorts and combines them,
+ * and the sorted blocks are merged in pairs. The canonical form of a box
+ * does not depend on the order in which its elements are found, so the
+ * result is the same as that of the sequential product.
+ * <p>
+ * A product is formed in parallel when it has at least threshold pairs of
+ * distinct elements. The threshold and the number of threads can be set
+ * with the system properties boxarithmetic.parallel.threshold and
+ * boxarithmetic.parallelism; a parallelism of 1 turns this off.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+final class ForkJoinProduct {
+
+    private static volatile int threshold
+            = Integer.getInteger("boxarithmetic.parallel.threshold", 2048);
+
+    private static volatile int parallelism
+            = Integer.getInteger("boxarithmetic.parallelism",
+                    Runtime.getRuntime().availableProcessors());
+
+    private static ForkJoinPool pool;
+
+    /** The number of blocks given to each thread, to balance the load. */
+    private static final int BLOCKS_PER_THREAD = 4;
+
+    private ForkJoinProduct() {}
+
+    /**
+     * Set the number of pairs of distinct elements from which a product
+     * is formed in parallel.
+     * @param n The threshold, at least 1
+     */
+    static void setThreshold(int n) {
+        threshold = Math.max(1, n);
+    }
+
+    /**
+     * Set the number of threads used for a product.
+     * @param n The number of threads, at least 1
+     */
+    static synchronized void setParallelism(int n) {
+        parallelism = Math.max(1, n);
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    static int threshold() {
+        return threshold;
+    }
+
+    static int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * The pool on which products are formed.
+     * @return the pool, created when first needed
+     */
+    static synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * Determine if a product is formed in parallel.
+     * @param rows The number of distinct elements of the first box
+     * @param pairs The number of pairs of distinct elements
+     * @return true if the product should be formed in parallel
+     */
+    static boolean isParallel(int rows, long pairs) {
+        return rows > 1 && parallelism > 1 && pairs >= threshold;
+    }
+
+    /**
+     * Form the rows of a product in parallel.
+     * @param rows The number of rows
+     * @param block The rows of a block, combined into distinct sorted
+     * elements
+     * @param merge The merge of two blocks
+     * @return the merged blocks
+     */
+    static <T> T invoke(int rows, Block<T> block, BinaryOperator<T> merge) {
+        int size = Math.max(1, rows / (parallelism * BLOCKS_PER_THREAD));
+        return pool().invoke(new Task<>(0, rows, size, block, merge));
+    }
+
+    /** The partial product of a range of rows. */
+    @FunctionalInterface
+    interface Block<T> {
+        T rows(int from, int to);
+    }
+
+    private static final class Task<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int size;
+        private final transient Block<T> block;
+        private final transient BinaryOperator<T> merge;
+
+        Task(int from, int to, int size, Block<T> block, BinaryOperator<T> merge) {
+            this.from = from;
+            this.to = to;
+            this.size = size;
+            this.block = block;
+            this.merge = merge;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from <= size) {
+                return block.rows(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            var left = new Task<>(from, middle, size, block, merge);
+            left.fork();
+            var right = new Task<>(middle, to, size, block, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+
+}
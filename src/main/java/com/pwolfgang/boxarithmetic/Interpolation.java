@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Evaluation of a polynumber at many points, and the inverse. The
+ * coefficient arrays are those of Convolution, with index k the
+ * coefficient of α^k.
+ * <p>
+ * The values of a polynumber of degree n at n points are about n² log x
+ * bits in all, so Horner's rule at each point, once the coefficients are
+ * known, does not do much more work than writing the values down. The
+ * polynumber is recovered from its values by Newton's divided differences,
+ * which are integers when the polynumber has integer coefficients.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+final class Interpolation {
+
+    private Interpolation() {}
+
+    /**
+     * Evaluate a box at each of a set of points. The coefficients of a
+     * dense polynumber, or of the difference of two, are found once and
+     * shared between the points; other boxes are evaluated at each point
+     * separately.
+     * @param box The box
+     * @param points The points
+     * @return the value at each point
+     */
+    static BigInteger[] evaluate(Box box, BigInteger[] points) {
+        var values = new BigInteger[points.length];
+        var f = coefficients(box);
+        for (int i = 0; i < points.length; i++) {
+            values[i] = f == null ? box.evalBigInteger(points[i]) : horner(f, points[i]);
+        }
+        return values;
+    }
+
+    /**
+     * Find the polynumber of degree less than the number of points that
+     * takes the given values at the points.
+     * @param points The points, all different
+     * @param values The value at each point
+     * @return The coefficients of the polynumber, without trailing zeros
+     * @throws IllegalArgumentException if a point is repeated
+     * @throws ArithmeticException if the polynumber does not have integer
+     * coefficients
+     */
+    static BigInteger[] interpolate(BigInteger[] points, BigInteger[] values) {
+        if (new HashSet<>(Arrays.asList(points)).size() != points.length) {
+            throw new IllegalArgumentException("A point is repeated in " + Arrays.toString(points));
+        }
+        int n = points.length;
+        var d = values.clone();
+        for (int k = 1; k < n; k++) {
+            for (int i = n - 1; i >= k; i--) {
+                var qr = d[i].subtract(d[i - 1]).divideAndRemainder(points[i].subtract(points[i - k]));
+                if (qr[1].signum() != 0) {
+                    throw new ArithmeticException("The values are not those of a polynumber");
+                }
+                d[i] = qr[0];
+            }
+        }
+        if (n == 0) {
+            return d;
+        }
+        var result = new BigInteger[n];
+        Arrays.fill(result, BigInteger.ZERO);
+        result[0] = d[n - 1];
+        for (int k = n - 2; k >= 0; k--) {
+            var x = points[k];
+            for (int j = n - 1 - k; j > 0; j--) {
+                result[j] = result[j - 1].subtract(x.multiply(result[j]));
+            }
+            result[0] = d[k].subtract(x.multiply(result[0]));
+        }
+        int length = n;
+        while (length > 0 && result[length - 1].signum() == 0) {
+            length--;
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    private static BigInteger horner(BigInteger[] f, BigInteger x) {
+        var result = BigInteger.ZERO;
+        for (int k = f.length - 1; k >= 0; k--) {
+            result = result.multiply(x).add(f[k]);
+        }
+        return result;
+    }
+
+    /**
+     * The coefficients of a dense polynumber, or of the difference of two.
+     * @param box The box
+     * @return the coefficients, or null if box is not of that form
+     */
+    static BigInteger[] coefficients(Box box) {
+        return switch (box) {
+            case EmptyBox e -> new BigInteger[0];
+            case NaturalBox x -> new BigInteger[]{x.bigValue()};
+            case PolyNumber p -> p.bigCoefficients();
+            case VirtualBox v -> {
+                var left = coefficients(v.left());
+                var right = coefficients(v.right());
+                if (left == null || right == null) {
+                    yield null;
+                }
+                var result = new BigInteger[Math.max(left.length, right.length)];
+                for (int i = 0; i < result.length; i++) {
+                    var x = i < left.length ? left[i] : BigInteger.ZERO;
+                    result[i] = i < right.length ? x.subtract(right[i]) : x;
+                }
+                yield result;
+            }
+            default -> null;
+        };
+    }
+
+}
@@ -0,0 +1,934 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * This class models a multinumber, a box whose elements are polynumbers.
+ * The polynumber [0 0 2] stands for the monomial α₀²α₂, so the box
+ * [[3 8] [0 0 2]] is the polynomial α₃α₈ + α₀²α₂ in α₀, α₁, ....
+ * <p>
+ * Each monomial is held as its exponent vector packed into longs, sixteen
+ * bits to each exponent, and the multinumber is a hash map from monomial to
+ * coefficient. The product of two monomials is then the sum of their packed
+ * words. The top bit of each field is kept clear so that an exponent that
+ * overflows its field is detected.
+ * <p>
+ * A box is represented by this class when its elements are polynumbers,
+ * not all natural numbers, whose exponents and coefficients fit in the
+ * packed form. Its sorted contents are formed only when they are needed.
+ * The coefficients of the multinumber are held in longs unless their sum
+ * does not fit in a long, and then in BigIntegers.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public final class MultiNumber extends AbstractBox {
+
+    /** The number of bits for each exponent. */
+    static final int BITS = 16;
+
+    /** The number of exponents packed into a long. */
+    static final int FIELDS = Long.SIZE / BITS;
+
+    /** The top bit of each field. */
+    static final long GUARD = 0x8000_8000_8000_8000L;
+
+    /** The largest exponent of a variable. */
+    static final long MAX_EXPONENT = (1 << (BITS - 1)) - 1;
+
+    /** The number of variables α₀ ... α₆₃. */
+    static final int MAX_VARIABLES = 64;
+
+    private final Terms terms;
+
+    private final long total;
+
+    private final BigInteger bigTotal;
+
+    private final int hash;
+
+    /**
+     * The elements sorted by compareTo, formed when first needed. The
+     * counts are set first, so a thread that sees the elements sees them.
+     */
+    private volatile Box[] elements;
+
+    /** The multiplicity of each of the elements, or null if they are BigIntegers. */
+    private long[] counts;
+
+    /** The multiplicities if the size does not fit in a long, otherwise null. */
+    private BigInteger[] bigCounts;
+
+    private MultiNumber(Terms terms) {
+        this.terms = terms;
+        int h = 0;
+        long t = 0;
+        var bt = BigInteger.ZERO;
+        for (int i = 0; i < terms.capacity(); i++) {
+            if (terms.used[i]) {
+                int c;
+                if (terms.isBig()) {
+                    c = terms.bigValues[i].intValue();
+                    bt = bt.add(terms.bigValues[i]);
+                } else {
+                    c = (int) terms.values[i];
+                    t = Math.addExact(t, terms.values[i]);
+                }
+                h += c * NonEmptyBox.mix(monomialHash(terms.keys, i * terms.words, terms.words));
+            }
+        }
+        hash = h;
+        total = t;
+        bigTotal = terms.isBig() ? bt : null;
+    }
+
+    /**
+     * The hash code of the polynumber that stands for a monomial.
+     */
+    private static int monomialHash(long[] keys, int offset, int words) {
+        int unit = NonEmptyBox.elementHash(EmptyBox.ZERO);
+        int h = 0;
+        for (int w = 0; w < words; w++) {
+            long word = keys[offset + w];
+            for (int f = 0; word != 0; f++, word >>>= BITS) {
+                int e = (int) (word & 0xFFFF);
+                if (e != 0) {
+                    h += e * NonEmptyBox.mix((w * FIELDS + f) * unit);
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * The number of words needed for a monomial in the given number of
+     * variables.
+     */
+    private static int wordsFor(int variables) {
+        return (variables + FIELDS - 1) / FIELDS;
+    }
+
+    /**
+     * The exponent vector of a polynumber that stands for a monomial.
+     * @param box The polynumber
+     * @return the exponent of each variable, or null if box is not a
+     * polynumber whose exponents fit in the packed form
+     */
+    private static long[] exponents(Box box) {
+        switch (box) {
+            case EmptyBox e -> {
+                return new long[0];
+            }
+            case NaturalBox n -> {
+                if (n.isBig() || n.longValue() > MAX_EXPONENT) {
+                    return null;
+                }
+                return new long[]{n.longValue()};
+            }
+            case PolyNumber p -> {
+                if (p.isBig() || p.degree() >= MAX_VARIABLES) {
+                    return null;
+                }
+                var result = new long[p.degree() + 1];
+                for (int i = 0; i < p.distinctSize(); i++) {
+                    result[p.exponent(i)] = p.multiplicity(i);
+                }
+                return fits(result) ? result : null;
+            }
+            case SparsePolyNumber s -> {
+                if (s.isBig() || s.degree() >= MAX_VARIABLES) {
+                    return null;
+                }
+                var result = new long[(int) s.degree() + 1];
+                var exps = s.exponents();
+                var coefs = s.coefficients();
+                for (int i = 0; i < exps.length; i++) {
+                    result[(int) exps[i]] = coefs[i];
+                }
+                return fits(result) ? result : null;
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    private static boolean fits(long[] exponents) {
+        for (long e : exponents) {
+            if (e > MAX_EXPONENT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void pack(long[] exponents, long[] key, int offset) {
+        for (int v = 0; v < exponents.length; v++) {
+            key[offset + v / FIELDS] |= exponents[v] << (BITS * (v % FIELDS));
+        }
+    }
+
+    /**
+     * Determine if a box with the given distinct elements is represented by
+     * this class.
+     * @param elements The distinct elements sorted by compareTo
+     * @return true if the elements are polynumbers, not all natural numbers,
+     * that fit in the packed form
+     */
+    static boolean isMultiNumber(Box[] elements) {
+        boolean polynumber = false;
+        for (var element : elements) {
+            if (exponents(element) == null) {
+                return false;
+            }
+            polynumber |= element.getHeight() == 2;
+        }
+        return polynumber;
+    }
+
+    /**
+     * Create the canonical box with the given contents. The contents must
+     * satisfy isMultiNumber.
+     * @param elements The distinct elements sorted by compareTo
+     * @param counts The multiplicity of each element
+     * @return The canonical box
+     */
+    static Box of(Box[] elements, long[] counts) {
+        var vectors = new long[elements.length][];
+        int variables = 0;
+        for (int i = 0; i < elements.length; i++) {
+            vectors[i] = exponents(elements[i]);
+            variables = Math.max(variables, vectors[i].length);
+        }
+        int words = wordsFor(variables);
+        var result = new Terms(words, elements.length);
+        var key = new long[words];
+        for (int i = 0; i < elements.length; i++) {
+            Arrays.fill(key, 0);
+            pack(vectors[i], key, 0);
+            result.add(key, 0, counts[i]);
+        }
+        return normalize(result);
+    }
+
+    /**
+     * Create the canonical box with the given contents, whose multiplicities
+     * may not fit in a long. The contents must satisfy isMultiNumber.
+     * @param elements The distinct elements sorted by compareTo
+     * @param counts The multiplicity of each element
+     * @return The canonical box
+     */
+    static Box of(Box[] elements, BigInteger[] counts) {
+        var vectors = new long[elements.length][];
+        int variables = 0;
+        for (int i = 0; i < elements.length; i++) {
+            vectors[i] = exponents(elements[i]);
+            variables = Math.max(variables, vectors[i].length);
+        }
+        int words = wordsFor(variables);
+        var result = new Terms(words, elements.length);
+        var key = new long[words];
+        for (int i = 0; i < elements.length; i++) {
+            Arrays.fill(key, 0);
+            pack(vectors[i], key, 0);
+            result.add(key, 0, counts[i]);
+        }
+        return normalize(result);
+    }
+
+    /**
+     * Create the canonical box with the given terms. If the terms involve
+     * only α₀ the result is a polynumber. The coefficients are held as
+     * BigIntegers exactly when their sum does not fit in a long.
+     * @param t The terms, which may be changed
+     * @return The canonical box
+     */
+    private static Box normalize(Terms t) {
+        if (t.size == 0) {
+            return EmptyBox.ZERO;
+        }
+        t.fit();
+        int words = 0;
+        boolean onlyFirst = true;
+        for (int i = 0; i < t.capacity(); i++) {
+            if (t.used[i]) {
+                for (int w = t.words - 1; w >= words; w--) {
+                    if (t.keys[i * t.words + w] != 0) {
+                        words = w + 1;
+                        break;
+                    }
+                }
+                onlyFirst &= (t.keys[i * t.words] & ~0xFFFFL) == 0;
+            }
+        }
+        if (words <= 1 && onlyFirst) {
+            var exps = new long[t.size];
+            int n = 0;
+            for (int i = 0; i < t.capacity(); i++) {
+                if (t.used[i]) {
+                    exps[n++] = t.words == 0 ? 0 : t.keys[i * t.words];
+                }
+            }
+            Arrays.sort(exps);
+            var key = new long[t.words];
+            if (t.isBig()) {
+                var coefs = new BigInteger[n];
+                for (int k = 0; k < n; k++) {
+                    if (t.words > 0) {
+                        key[0] = exps[k];
+                    }
+                    coefs[k] = t.bigGet(key, 0);
+                }
+                return SparsePolyNumber.normalize(exps, coefs, n);
+            }
+            var coefs = new long[n];
+            for (int k = 0; k < n; k++) {
+                if (t.words > 0) {
+                    key[0] = exps[k];
+                }
+                coefs[k] = t.get(key, 0);
+            }
+            return SparsePolyNumber.normalize(exps, coefs, n);
+        }
+        return BoxInterner.intern(new MultiNumber(t.withWords(words)));
+    }
+
+    /**
+     * The terms of a box in packed form.
+     * @param box The box
+     * @param words The number of words for each monomial
+     * @return the terms of box, or null if box is not a polynumber or
+     * multinumber that fits in the packed form
+     */
+    private static Terms termsOf(Box box, int words) {
+        if (box instanceof MultiNumber m) {
+            return m.terms.withWords(Math.max(words, m.terms.words));
+        }
+        if (!(box instanceof AbstractBox a)) {
+            return null;
+        }
+        var result = new Terms(words, a.distinctSize());
+        var key = new long[words];
+        for (int i = 0; i < a.distinctSize(); i++) {
+            var e = exponents(a.distinct(i));
+            if (e == null || e.length > FIELDS * words) {
+                return null;
+            }
+            Arrays.fill(key, 0);
+            pack(e, key, 0);
+            if (a.isBig()) {
+                result.add(key, 0, a.bigMultiplicity(i));
+            } else {
+                result.add(key, 0, a.multiplicity(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The sum with another multinumber or polynumber is formed by adding
+     * the coefficients of equal monomials.
+     */
+    @Override
+    public Box add(Box other) {
+        if (other.isEmptyBox()) {
+            return this;
+        }
+        var y = termsOf(other, terms.words);
+        if (y == null) {
+            return switch (other) {
+                case AbstractBox a -> NonEmptyBox.sum(this, a);
+                default -> other.add(this);
+            };
+        }
+        var x = terms.withWords(y.words);
+        var result = x.copy(x.size + y.size);
+        for (int j = 0; j < y.capacity(); j++) {
+            if (y.used[j]) {
+                result.add(y.keys, j * y.words, y, j);
+            }
+        }
+        return normalize(result);
+    }
+
+    @Override
+    public Box addEmptyBox(EmptyBox other) {
+        return this;
+    }
+
+    @Override
+    public Box addNonEmptyBox(NonEmptyBox other) {
+        return add(other);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The product with another multinumber or polynumber is formed by
+     * adding the packed exponents of each pair of monomials. If an
+     * exponent overflows its field the product is formed element by
+     * element.
+     */
+    @Override
+    public Box mul(Box other) {
+        if (other == this) {
+            return square();
+        }
+        if (other.isEmptyBox()) {
+            return EmptyBox.ZERO;
+        }
+        var y = termsOf(other, terms.words);
+        if (y == null) {
+            return switch (other) {
+                case AbstractBox a -> NonEmptyBox.product(this, a);
+                default -> other.mul(this);
+            };
+        }
+        return times(y, (AbstractBox) other, Long.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The degree of a monomial is the sum of its packed exponents, and the
+     * pairs of monomials whose degrees add to more than maxDegree are
+     * skipped.
+     */
+    @Override
+    Box truncatedProduct(Box other, int maxDegree) {
+        if (other.isEmptyBox()) {
+            return EmptyBox.ZERO;
+        }
+        var y = termsOf(other, terms.words);
+        if (y == null) {
+            return super.truncatedProduct(other, maxDegree);
+        }
+        return times(y, (AbstractBox) other, maxDegree);
+    }
+
+    /**
+     * The product of this multinumber and another box, given by its terms,
+     * without the monomials of degree greater than maxDegree. If an
+     * exponent overflows its field the product is formed element by
+     * element.
+     */
+    private Box times(Terms y, AbstractBox other, long maxDegree) {
+        var x = terms.withWords(y.words);
+        int words = x.words;
+        var yDegrees = maxDegree == Long.MAX_VALUE ? null : degrees(y);
+        var result = new Terms(words, (long) x.size * y.size);
+        var key = new long[words];
+        for (int i = 0; i < x.capacity(); i++) {
+            if (!x.used[i]) {
+                continue;
+            }
+            long limit = yDegrees == null ? 0 : maxDegree - degree(x, i);
+            for (int j = 0; j < y.capacity(); j++) {
+                if (!y.used[j] || yDegrees != null && yDegrees[j] > limit) {
+                    continue;
+                }
+                long guard = 0;
+                for (int w = 0; w < words; w++) {
+                    key[w] = x.keys[i * words + w] + y.keys[j * words + w];
+                    guard |= key[w];
+                }
+                if ((guard & GUARD) != 0) {
+                    return NonEmptyBox.product(this, other, maxDegree);
+                }
+                result.addProduct(key, x, i, y, j, 1);
+            }
+        }
+        return normalize(result);
+    }
+
+    /**
+     * The total degree of the i-th monomial of t.
+     */
+    private static long degree(Terms t, int i) {
+        long d = 0;
+        for (int w = 0; w < t.words; w++) {
+            for (long word = t.keys[i * t.words + w]; word != 0; word >>>= BITS) {
+                d += word & 0xFFFF;
+            }
+        }
+        return d;
+    }
+
+    private static long[] degrees(Terms t) {
+        var result = new long[t.capacity()];
+        for (int i = 0; i < result.length; i++) {
+            if (t.used[i]) {
+                result[i] = degree(t, i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each pair of distinct monomials is multiplied once and doubled.
+     */
+    @Override
+    public Box square() {
+        var x = terms;
+        int words = x.words;
+        var result = new Terms(words, (long) x.size * (x.size + 1) / 2);
+        var key = new long[words];
+        for (int i = 0; i < x.capacity(); i++) {
+            if (!x.used[i]) {
+                continue;
+            }
+            for (int j = i; j < x.capacity(); j++) {
+                if (!x.used[j]) {
+                    continue;
+                }
+                long guard = 0;
+                for (int w = 0; w < words; w++) {
+                    key[w] = x.keys[i * words + w] + x.keys[j * words + w];
+                    guard |= key[w];
+                }
+                if ((guard & GUARD) != 0) {
+                    return NonEmptyBox.square(this);
+                }
+                result.addProduct(key, x, i, x, j, i == j ? 1 : 2);
+            }
+        }
+        return normalize(result);
+    }
+
+    @Override
+    public Box mulEmptyBox(EmptyBox other) {
+        return EmptyBox.ZERO;
+    }
+
+    @Override
+    public Box mulNonEmptyBox(NonEmptyBox other) {
+        return mul(other);
+    }
+
+    /**
+     * Evaluate this multinumber from its packed monomials.
+     * @param <T> The type of the numbers
+     * @param arithmetic The arithmetic to use
+     * @param alpha The values of α₀, α₁, ...
+     * @return The value of this multinumber
+     */
+    <T> T evaluate(Evaluator<T> arithmetic, T[] alpha) {
+        int words = terms.words;
+        T result = arithmetic.of(0);
+        for (int i = 0; i < terms.capacity(); i++) {
+            if (!terms.used[i]) {
+                continue;
+            }
+            T term = terms.isBig() ? arithmetic.of(terms.bigValues[i]) : arithmetic.of(terms.values[i]);
+            for (int w = 0; w < words; w++) {
+                long word = terms.keys[i * words + w];
+                for (int f = 0; word != 0; f++, word >>>= BITS) {
+                    long e = word & 0xFFFF;
+                    if (e != 0) {
+                        term = arithmetic.multiply(term,
+                                arithmetic.power(arithmetic.alpha(alpha, w * FIELDS + f), e));
+                    }
+                }
+            }
+            result = arithmetic.add(result, term);
+        }
+        return result;
+    }
+
+    /**
+     * Form the sorted contents of this box.
+     */
+    private void sortContents() {
+        int n = terms.size;
+        var boxs = new Box[n];
+        var slots = new int[n];
+        int words = terms.words;
+        int k = 0;
+        for (int i = 0; i < terms.capacity(); i++) {
+            if (terms.used[i]) {
+                var e = new long[words * FIELDS];
+                for (int v = 0; v < e.length; v++) {
+                    e[v] = (terms.keys[i * words + v / FIELDS] >>> (BITS * (v % FIELDS))) & 0xFFFF;
+                }
+                boxs[k] = PolyNumber.normalize(e);
+                slots[k++] = i;
+            }
+        }
+        var order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> boxs[i].compareTo(boxs[j]));
+        var sortedElements = new Box[n];
+        for (int i = 0; i < n; i++) {
+            sortedElements[i] = boxs[order[i]];
+        }
+        if (terms.isBig()) {
+            var sortedCounts = new BigInteger[n];
+            for (int i = 0; i < n; i++) {
+                sortedCounts[i] = terms.bigValues[slots[order[i]]];
+            }
+            bigCounts = sortedCounts;
+        } else {
+            var sortedCounts = new long[n];
+            for (int i = 0; i < n; i++) {
+                sortedCounts[i] = terms.values[slots[order[i]]];
+            }
+            counts = sortedCounts;
+        }
+        elements = sortedElements;
+    }
+
+    @Override
+    boolean isBig() {
+        return bigTotal != null;
+    }
+
+    @Override
+    long total() {
+        if (bigTotal != null) {
+            throw new ArithmeticException("size too large for a long");
+        }
+        return total;
+    }
+
+    @Override
+    BigInteger bigTotal() {
+        return bigTotal != null ? bigTotal : BigInteger.valueOf(total);
+    }
+
+    @Override
+    int distinctSize() {
+        return terms.size;
+    }
+
+    @Override
+    Box distinct(int i) {
+        if (elements == null) {
+            sortContents();
+        }
+        return elements[i];
+    }
+
+    @Override
+    long multiplicity(int i) {
+        if (elements == null) {
+            sortContents();
+        }
+        return counts != null ? counts[i] : bigCounts[i].longValueExact();
+    }
+
+    @Override
+    BigInteger bigMultiplicity(int i) {
+        if (elements == null) {
+            sortContents();
+        }
+        return counts != null ? BigInteger.valueOf(counts[i]) : bigCounts[i];
+    }
+
+    @Override
+    public boolean isEmptyBox() {
+        return false;
+    }
+
+    @Override
+    public int getHeight() {
+        return 3;
+    }
+
+    /**
+     * Since a box is immutable it is its own copy.
+     * @return this Box
+     */
+    @Override
+    public MultiNumber clone() {
+        return this;
+    }
+
+    /**
+     * Two multinumbers are equal if they have the same monomials with the
+     * same coefficients.
+     * @param o The other object
+     * @return true if o is an equal MultiNumber
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof MultiNumber other) {
+            if (hash != other.hash || total != other.total
+                    || !bigTotal().equals(other.bigTotal())
+                    || terms.size != other.terms.size
+                    || terms.words != other.terms.words) {
+                return false;
+            }
+            for (int i = 0; i < terms.capacity(); i++) {
+                if (!terms.used[i]) {
+                    continue;
+                }
+                if (terms.isBig() ? !other.terms.bigGet(terms.keys, i * terms.words).equals(terms.bigValues[i])
+                        : other.terms.get(terms.keys, i * terms.words) != terms.values[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The hash code is the same as that of the equivalent box of
+     * polynumbers.
+     * @return The structural hash code
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * An open addressing map from packed monomial to coefficient. Each
+     * key occupies words consecutive longs. The coefficients are held in
+     * longs until one overflows, and then in BigIntegers.
+     */
+    private static final class Terms {
+
+        final int words;
+        long[] keys;
+        long[] values;
+        BigInteger[] bigValues;
+        boolean[] used;
+        int size;
+
+        Terms(int words, long expected) {
+            this.words = words;
+            int capacity = 8;
+            while (capacity < 2 * expected && capacity < 1 << 20) {
+                capacity <<= 1;
+            }
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity * words];
+            if (bigValues != null) {
+                bigValues = new BigInteger[capacity];
+            } else {
+                values = new long[capacity];
+            }
+            used = new boolean[capacity];
+            size = 0;
+        }
+
+        int capacity() {
+            return used.length;
+        }
+
+        boolean isBig() {
+            return bigValues != null;
+        }
+
+        private int slot(long[] key, int offset) {
+            long h = 0;
+            for (int w = 0; w < words; w++) {
+                h = h * 31 + key[offset + w];
+            }
+            int mask = capacity() - 1;
+            int i = NonEmptyBox.mix(Long.hashCode(h)) & mask;
+            while (used[i] && !Arrays.equals(keys, i * words, i * words + words,
+                    key, offset, offset + words)) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        void add(long[] key, int offset, long value) {
+            if (bigValues != null) {
+                add(key, offset, BigInteger.valueOf(value));
+                return;
+            }
+            int i = slot(key, offset);
+            if (used[i]) {
+                long sum = values[i] + value;
+                if (sum < 0) {
+                    toBig();
+                    bigValues[i] = bigValues[i].add(BigInteger.valueOf(value));
+                } else {
+                    values[i] = sum;
+                }
+                return;
+            }
+            used[i] = true;
+            System.arraycopy(key, offset, keys, i * words, words);
+            values[i] = value;
+            grow();
+        }
+
+        void add(long[] key, int offset, BigInteger value) {
+            if (bigValues == null) {
+                toBig();
+            }
+            int i = slot(key, offset);
+            if (used[i]) {
+                bigValues[i] = bigValues[i].add(value);
+                return;
+            }
+            used[i] = true;
+            System.arraycopy(key, offset, keys, i * words, words);
+            bigValues[i] = value;
+            grow();
+        }
+
+        /**
+         * Add the coefficient of the j-th slot of t with the given key.
+         */
+        void add(long[] key, int offset, Terms t, int j) {
+            if (t.bigValues != null) {
+                add(key, offset, t.bigValues[j]);
+            } else {
+                add(key, offset, t.values[j]);
+            }
+        }
+
+        /**
+         * Add factor times the product of the coefficients of the i-th slot
+         * of x and the j-th slot of y.
+         */
+        void addProduct(long[] key, Terms x, int i, Terms y, int j, int factor) {
+            if (x.bigValues == null && y.bigValues == null) {
+                long high = Math.multiplyHigh(x.values[i], y.values[j]);
+                long low = x.values[i] * y.values[j];
+                if (high == 0 && low >= 0 && low <= Long.MAX_VALUE / factor) {
+                    add(key, 0, low * factor);
+                    return;
+                }
+            }
+            add(key, 0, x.value(i).multiply(y.value(j)).multiply(BigInteger.valueOf(factor)));
+        }
+
+        private void grow() {
+            if (++size * 2 > capacity()) {
+                var oldKeys = keys;
+                var oldValues = values;
+                var oldBigValues = bigValues;
+                var oldUsed = used;
+                allocate(capacity() * 2);
+                for (int j = 0; j < oldUsed.length; j++) {
+                    if (oldUsed[j]) {
+                        if (oldBigValues != null) {
+                            add(oldKeys, j * words, oldBigValues[j]);
+                        } else {
+                            add(oldKeys, j * words, oldValues[j]);
+                        }
+                    }
+                }
+            }
+        }
+
+        private BigInteger value(int i) {
+            return bigValues != null ? bigValues[i] : BigInteger.valueOf(values[i]);
+        }
+
+        private void toBig() {
+            bigValues = new BigInteger[capacity()];
+            for (int i = 0; i < capacity(); i++) {
+                if (used[i]) {
+                    bigValues[i] = BigInteger.valueOf(values[i]);
+                }
+            }
+            values = null;
+        }
+
+        /**
+         * Hold the coefficients as BigIntegers exactly when their sum does
+         * not fit in a long.
+         */
+        void fit() {
+            if (bigValues == null) {
+                long t = 0;
+                for (int i = 0; i < capacity(); i++) {
+                    if (used[i]) {
+                        t += values[i];
+                        if (t < 0) {
+                            toBig();
+                            return;
+                        }
+                    }
+                }
+                return;
+            }
+            var t = BigInteger.ZERO;
+            for (int i = 0; i < capacity(); i++) {
+                if (used[i]) {
+                    t = t.add(bigValues[i]);
+                }
+            }
+            if (t.bitLength() < Long.SIZE) {
+                values = new long[capacity()];
+                for (int i = 0; i < capacity(); i++) {
+                    if (used[i]) {
+                        values[i] = bigValues[i].longValue();
+                    }
+                }
+                bigValues = null;
+            }
+        }
+
+        long get(long[] key, int offset) {
+            int i = slot(key, offset);
+            return used[i] ? values[i] : 0;
+        }
+
+        BigInteger bigGet(long[] key, int offset) {
+            int i = slot(key, offset);
+            return used[i] ? value(i) : BigInteger.ZERO;
+        }
+
+        Terms copy(long expected) {
+            var result = new Terms(words, expected);
+            for (int i = 0; i < capacity(); i++) {
+                if (used[i]) {
+                    result.add(keys, i * words, this, i);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * The same terms with the given number of words for each monomial.
+         * @param n The number of words, which does not drop a nonzero word
+         * @return these terms if n is the number of words, otherwise a copy
+         */
+        Terms withWords(int n) {
+            if (n == words) {
+                return this;
+            }
+            var result = new Terms(n, size);
+            var key = new long[n];
+            for (int i = 0; i < capacity(); i++) {
+                if (used[i]) {
+                    Arrays.fill(key, 0);
+                    System.arraycopy(keys, i * words, key, 0, Math.min(n, words));
+                    result.add(key, 0, this, i);
+                }
+            }
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+
+/**
+ * This class models a natural number n &gt; 0, the box containing n empty
+ * boxes. The number is held as a long, or as a BigInteger when it does not
+ * fit in a long, so that arithmetic on natural numbers does not depend on
+ * the number of empty boxes. Every box that contains only empty boxes is
+ * represented by a NaturalBox.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public final class NaturalBox extends AbstractBox {
+
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private static final NaturalBox[] cache = new NaturalBox[256];
+
+    static {
+        for (int i = 1; i < cache.length; i++) {
+            cache[i] = new NaturalBox(i, null);
+        }
+    }
+
+    /** The value if it fits in a long. */
+    private final long value;
+
+    /** The value if it does not fit in a long, otherwise null. */
+    private final BigInteger big;
+
+    private final int hash;
+
+    private NaturalBox(long value, BigInteger big) {
+        this.value = value;
+        this.big = big;
+        int n = big == null ? (int) value : big.intValue();
+        hash = n * NonEmptyBox.elementHash(EmptyBox.ZERO);
+    }
+
+    /**
+     * Create the box that represents the natural number n.
+     * @param n The number, which must be positive
+     * @return The NaturalBox with value n
+     * @throws IllegalArgumentException if n &lt;= 0
+     */
+    static NaturalBox of(long n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (n < cache.length) {
+            return cache[(int) n];
+        }
+        return new NaturalBox(n, null);
+    }
+
+    /**
+     * Create the box that represents the natural number n.
+     * @param n The number
+     * @return The EmptyBox if n is zero, otherwise a NaturalBox
+     * @throws IllegalArgumentException if n &lt; 0
+     */
+    static Box of(BigInteger n) {
+        switch (n.signum()) {
+            case 0 -> {
+                return EmptyBox.ZERO;
+            }
+            case -1 -> throw new IllegalArgumentException();
+            default -> {
+                if (n.compareTo(LONG_MAX) <= 0) {
+                    return of(n.longValue());
+                }
+                return new NaturalBox(0, n);
+            }
+        }
+    }
+
+    /**
+     * Create the box that represents the natural number n.
+     * @param n The number
+     * @return The EmptyBox if n is zero, otherwise a NaturalBox
+     */
+    static Box ofCount(long n) {
+        return n == 0 ? EmptyBox.ZERO : of(n);
+    }
+
+    /**
+     * The value of this natural number.
+     * @return the value as a BigInteger
+     */
+    public BigInteger bigValue() {
+        return big != null ? big : BigInteger.valueOf(value);
+    }
+
+    /**
+     * The value of this natural number.
+     * @return the value as a long
+     * @throws ArithmeticException if the value does not fit in a long
+     */
+    public long longValue() {
+        if (big != null) {
+            throw new ArithmeticException("natural number too large for a long");
+        }
+        return value;
+    }
+
+    /**
+     * Indicate that the value does not fit in a long.
+     * @return true if the value is held as a BigInteger
+     */
+    @Override
+    boolean isBig() {
+        return big != null;
+    }
+
+    @Override
+    BigInteger bigTotal() {
+        return bigValue();
+    }
+
+    @Override
+    BigInteger bigMultiplicity(int i) {
+        return bigValue();
+    }
+
+    @Override
+    long total() {
+        return longValue();
+    }
+
+    @Override
+    int distinctSize() {
+        return 1;
+    }
+
+    @Override
+    Box distinct(int i) {
+        return EmptyBox.ZERO;
+    }
+
+    @Override
+    long multiplicity(int i) {
+        return longValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return the value of this natural number
+     * @throws ArithmeticException if the value does not fit in an int
+     */
+    @Override
+    public int intSize() {
+        if (big != null) {
+            throw new ArithmeticException("integer overflow");
+        }
+        return Math.toIntExact(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each element of a natural number is already the empty box.
+     * @return this box
+     */
+    @Override
+    public Box size() {
+        return this;
+    }
+
+    @Override
+    public Box tB(Box b) {
+        return b.isEmptyBox() ? this : EmptyBox.ZERO;
+    }
+
+    @Override
+    public Box eval(Box A) {
+        if (A.isEmptyBox()) {
+            return Box.of(1);
+        }
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The power is computed directly from the value of this number.
+     */
+    @Override
+    public Box pow(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Negative exponent " + n);
+        }
+        if (big == null && value == 1) {
+            return this;
+        }
+        return of(bigValue().pow(Math.toIntExact(n)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The power is computed directly from the value of this number.
+     */
+    @Override
+    public Box pow(BigInteger n) {
+        if (n.signum() < 0) {
+            throw new IllegalArgumentException("Negative exponent " + n);
+        }
+        if (big == null && value == 1) {
+            return this;
+        }
+        return of(bigValue().pow(n.intValueExact()));
+    }
+
+    @Override
+    public boolean isEmptyBox() {
+        return false;
+    }
+
+    @Override
+    public int getHeight() {
+        return 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return A box of empty boxes.
+     */
+    @Override
+    public String toString() {
+        var stj = new StringJoiner(" ", "[", "]");
+        forEach(e -> stj.add(e.toString()));
+        return stj.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return the value of this number.
+     */
+    @Override
+    public String toIntegerString() {
+        return big != null ? big.toString() : Long.toString(value);
+    }
+
+    /**
+     * Since a box is immutable it is its own copy.
+     * @return this Box
+     */
+    @Override
+    public NaturalBox clone() {
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return An iterator that returns the empty box value times.
+     */
+    @Override
+    public Iterator<Box> iterator() {
+        if (big != null) {
+            return new Iterator<>() {
+                BigInteger remaining = big;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining.signum() > 0;
+                }
+
+                @Override
+                public Box next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    remaining = remaining.subtract(BigInteger.ONE);
+                    return EmptyBox.ZERO;
+                }
+            };
+        }
+        return new Iterator<>() {
+            long remaining = value;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Box next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                return EmptyBox.ZERO;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * The sum of two natural numbers is computed from their values.
+     */
+    @Override
+    public Box add(Box other) {
+        return switch (other) {
+            case NaturalBox n -> plus(n);
+            case PolyNumber p -> p.add(this);
+            case SparsePolyNumber s -> s.add(this);
+            case MultiNumber m -> m.add(this);
+            case AbstractBox a -> NonEmptyBox.sum(this, a);
+            default -> other.add(this);
+        };
+    }
+
+    private Box plus(NaturalBox other) {
+        if (big == null && other.big == null) {
+            long sum = value + other.value;
+            if (sum > 0) {
+                return of(sum);
+            }
+        }
+        return of(bigValue().add(other.bigValue()));
+    }
+
+    @Override
+    public Box addEmptyBox(EmptyBox other) {
+        return this;
+    }
+
+    @Override
+    public Box addNonEmptyBox(NonEmptyBox other) {
+        return NonEmptyBox.sum(other, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The product of two natural numbers is computed from their values.
+     */
+    @Override
+    public Box mul(Box other) {
+        return switch (other) {
+            case NaturalBox n -> times(n);
+            case PolyNumber p -> p.mul(this);
+            case SparsePolyNumber s -> s.mul(this);
+            case MultiNumber m -> m.mul(this);
+            case AbstractBox a -> NonEmptyBox.product(this, a);
+            default -> other.mul(this);
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * The elements of a natural number have degree 0.
+     */
+    @Override
+    Box truncatedProduct(Box other, int maxDegree) {
+        return switch (other) {
+            case NaturalBox n -> times(n);
+            case PolyNumber p -> p.mulTruncated(this, maxDegree);
+            case SparsePolyNumber s -> s.mulTruncated(this, maxDegree);
+            case MultiNumber m -> m.mulTruncated(this, maxDegree);
+            default -> super.truncatedProduct(other, maxDegree);
+        };
+    }
+
+    private Box times(NaturalBox other) {
+        if (big == null && other.big == null) {
+            long hi = Math.multiplyHigh(value, other.value);
+            long lo = value * other.value;
+            if (hi == 0 && lo > 0) {
+                return of(lo);
+            }
+        }
+        return of(bigValue().multiply(other.bigValue()));
+    }
+
+    @Override
+    public Box mulEmptyBox(EmptyBox other) {
+        return EmptyBox.ZERO;
+    }
+
+    @Override
+    public Box mulNonEmptyBox(NonEmptyBox other) {
+        return NonEmptyBox.product(other, this);
+    }
+
+    /**
+     * Two natural numbers are equal if they have the same value.
+     * @param o The other object
+     * @return true if o is a NaturalBox with the same value
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof NaturalBox other) {
+            if (big == null) {
+                return other.big == null && value == other.value;
+            }
+            return big.equals(other.big);
+        }
+        return false;
+    }
+
+    /**
+     * The hash code is the same as that of the equivalent box of empty
+     * boxes.
+     * @return The structural hash code
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return The value of this number.
+     */
+    @Override
+    public String asPolyNumber() {
+        return toIntegerString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return A list containing value empty boxes.
+     */
+    @Override
+    public List<Box> getContent() {
+        List<Box> result = new ArrayList<>(Collections.nCopies(intSize(), EmptyBox.ZERO));
+        return result;
+    }
+
+}
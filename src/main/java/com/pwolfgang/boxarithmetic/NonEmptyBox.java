@@ -17,24 +17,46 @@
  */
 package com.pwolfgang.boxarithmetic;
 
-import java.util.ArrayList;
+import java.math.BigInteger;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.StringJoiner;
-import java.util.TreeSet;
 
 /**
- * This class models a non-empty mset
+ * This class models a non-empty mset. A NonEmptyBox is immutable, so its
+ * contents are shared rather than copied. Boxes created through the factory
+ * methods are interned, which turns a tree of boxes into a DAG in which each
+ * structurally distinct box is represented only once.
+ * <p>
+ * The contents are stored as the distinct elements, sorted by compareTo,
+ * each paired with its multiplicity. Thus the natural number n is a single
+ * empty box with multiplicity n rather than n separate empty boxes. The
+ * multiplicities are held in longs unless their sum does not fit in a
+ * long, and then in BigIntegers.
  * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
  */
-public class NonEmptyBox implements Box {
+public class NonEmptyBox extends AbstractBox {
     
-    int height;
+    private final int height;
     
-    SortedSet<Box> content;
+    /** The distinct elements sorted by compareTo. */
+    private final Box[] elements;
+    
+    /** The multiplicity of each of the elements, or null if they are BigIntegers. */
+    private final long[] counts;
+    
+    /** The multiplicities if the size does not fit in a long, otherwise null. */
+    private final BigInteger[] bigCounts;
+    
+    /** The total number of elements, the sum of the counts. */
+    private final long total;
+    
+    private final BigInteger bigTotal;
+    
+    /** The structural hash code. */
+    private final int hash;
+    
+    /** True if a VirtualBox occurs anywhere within this box. */
+    private final boolean hasVirtual;
     
     /**
      * {@inheritDoc}
@@ -46,163 +68,363 @@ public class NonEmptyBox implements Box {
     }
     
     /**
-     * Construct a new NonEmptyMset from an array of boxs.
-     * @param boxs The array of boxs
-     */
-    NonEmptyBox(Box... boxs) {
-        this(Arrays.asList(boxs));
-    }
-    
-    /**
-     * Construct a new NonEmptyMset from a List of boxs.
-     * @param boxs The List of boxs
+     * Construct a new NonEmptyBox from distinct sorted elements and
+     * their multiplicities. The arrays become owned by this box.
+     * @param m The distinct elements sorted by compareTo and their
+     * multiplicities, each positive
      */
-    NonEmptyBox(List<Box> boxs) {
-        content = new TreeSet<>(Box::compareTo);
+    private NonEmptyBox(Multiset m) {
+        this.elements = m.elements;
+        this.counts = m.counts;
+        this.bigCounts = m.bigCounts;
         int maxHeight = 0;
-        for (Box m : boxs) {
-            var box = m.clone();
+        int h = 0;
+        long t = 0;
+        var bt = BigInteger.ZERO;
+        boolean virtual = false;
+        for (int i = 0; i < elements.length; i++) {
+            var box = elements[i];
             if (maxHeight < box.getHeight()) {
                 maxHeight = box.getHeight();
             }
-            content.add(box);
+            int c;
+            if (counts != null) {
+                c = (int) counts[i];
+                t = Math.addExact(t, counts[i]);
+            } else {
+                c = bigCounts[i].intValue();
+                bt = bt.add(bigCounts[i]);
+            }
+            h += c * elementHash(box);
+            virtual |= isVirtual(box);
         }
         height = maxHeight + 1;
+        hash = h;
+        total = t;
+        bigTotal = bigCounts != null ? bt : null;
+        hasVirtual = virtual;
+    }
+    
+    private static long[] ones(int n) {
+        var result = new long[n];
+        Arrays.fill(result, 1L);
+        return result;
     }
     
     /**
-     * Construct a non0empty box that represents the integer n.
-     * This box will contain n Emptyboxs if n &gt; 0 or a VirtualBox
-     * n &lt; 0
-     * @throws IllegalArgumentException if n <= 0
-     * @param n The integer to be represented.
+     * Create the canonical box containing the given boxs. A list of natural
+     * numbers is counted directly into a polynumber.
+     * @param boxs The List of boxs
+     * @return The canonical box with the contents boxs
      */
-    NonEmptyBox(int n) {
-        content = new TreeSet<>(Box::compareTo);
-        if (n > 0) {
-            for (int i = 0; i < n; i++) {
-                var box = new EmptyBox();
-                content.add(box);
+    static Box of(List<Box> boxs) {
+        var array = boxs.toArray(new Box[boxs.size()]);
+        if (isNaturals(array)) {
+            return SparsePolyNumber.ofNaturals(array);
+        }
+        return of(array, ones(array.length), array.length);
+    }
+    
+    private static boolean isNaturals(Box[] boxs) {
+        for (var box : boxs) {
+            if (!box.isEmptyBox() && !(box instanceof NaturalBox n && !n.isBig())) {
+                return false;
             }
-        } else {
-            throw new IllegalArgumentException();
         }
-        height = 1;
-    } 
+        return true;
+    }
     
     /**
-     * Construct a new NonEmptyMset from a SortedSet of boxs.
-     * @param boxs The SortedSet of boxs
+     * Create the canonical box containing the given boxes with the given
+     * multiplicities. The boxes need not be sorted or distinct.
+     * @param boxs The array of boxes
+     * @param multiplicities The multiplicity of each box
+     * @param n The number of entries of boxs and multiplicities to use
+     * @return The canonical box
      */
-    NonEmptyBox(SortedSet<Box> c) {
-        content = new TreeSet<>(Box::compareTo);
-        int maxHeight = 0;
-        for (Box Box : c) {
-            Box newBox = Box.clone();
-            if (maxHeight < newBox.getHeight()) {
-                maxHeight = newBox.getHeight();
-            }
-            content.add(newBox);
+    static Box of(Box[] boxs, long[] multiplicities, int n) {
+        if (n == 0) {
+            return EmptyBox.ZERO;
         }
-        height = maxHeight + 1;
+        return make(Multiset.combine(boxs, multiplicities, n));
     }
     
     /**
-     * Make a deep copy of this Box.
-     * @return a deep copy of this Box
+     * Create the canonical box containing the given boxes with
+     * multiplicities that may not fit in a long.
+     * @param boxs The array of boxes
+     * @param multiplicities The multiplicity of each box
+     * @param n The number of entries of boxs and multiplicities to use
+     * @return The canonical box
      */
-    @Override
-    public NonEmptyBox clone() {
-        List<Box> contentsList = new ArrayList<>();
-        content.forEach(m -> contentsList.add(m.clone()));
-        NonEmptyBox theClone = new NonEmptyBox(contentsList);
-        return theClone;
+    static Box of(Box[] boxs, BigInteger[] multiplicities, int n) {
+        if (n == 0) {
+            return EmptyBox.ZERO;
+        }
+        return make(Multiset.combine(boxs, multiplicities, n));
     }
-        
+    
     /**
-     * {@inheritDoc}
-     * @return the number of elements in this mset
+     * Create the canonical box from distinct elements that are already
+     * sorted by compareTo. No sorting or combining is done.
+     * @param boxs The distinct sorted elements
+     * @param multiplicities The multiplicity of each element
+     * @param n The number of entries to use
+     * @return The canonical box
      */
-    @Override
-    public int intSize() {
-        return content.size();
+    static Box ofSorted(Box[] boxs, long[] multiplicities, int n) {
+        if (n == 0) {
+            return EmptyBox.ZERO;
+        }
+        if (n < boxs.length) {
+            boxs = Arrays.copyOf(boxs, n);
+            multiplicities = Arrays.copyOf(multiplicities, n);
+        }
+        return make(Multiset.of(boxs, multiplicities));
     }
     
-    @Override 
-    public Box size() {
-        return Box.of(content.size());
+    /**
+     * Create the canonical box from distinct sorted elements with
+     * multiplicities that may not fit in a long.
+     * @param boxs The distinct sorted elements
+     * @param multiplicities The multiplicity of each element
+     * @param n The number of entries to use
+     * @return The canonical box
+     */
+    static Box ofSorted(Box[] boxs, BigInteger[] multiplicities, int n) {
+        if (n == 0) {
+            return EmptyBox.ZERO;
+        }
+        if (n < boxs.length) {
+            boxs = Arrays.copyOf(boxs, n);
+            multiplicities = Arrays.copyOf(multiplicities, n);
+        }
+        return make(Multiset.of(boxs, multiplicities));
     }
     
-    @Override
-    public Box tB(Box b) {
-        List<Box> result = new ArrayList<>();
-        for (var x:content) {
-            if (x.equals(b)) {
-                result.add(x);
-            }
+    /**
+     * Create the canonical box with the given contents. A box that
+     * contains only empty boxes is a natural number, and a box of natural
+     * numbers is a PolyNumber or SparsePolyNumber, and a box of such
+     * polynumbers is a MultiNumber. Boxes that contain a
+     * VirtualBox are not interned since equal VirtualBoxes may differ in
+     * appearance.
+     * @param m The distinct sorted elements and their multiplicities
+     * @return The canonical box
+     */
+    private static Box make(Multiset m) {
+        if (m.elements.length == 1 && m.elements[0].isEmptyBox()) {
+            return NaturalBox.of(m.count(0));
         }
-        return Box.of(result);
+        if (SparsePolyNumber.isPolyNumber(m.elements)) {
+            return m.isBig() ? SparsePolyNumber.of(m.elements, m.bigCounts)
+                    : SparsePolyNumber.of(m.elements, m.counts);
+        }
+        if (MultiNumber.isMultiNumber(m.elements)) {
+            return m.isBig() ? MultiNumber.of(m.elements, m.bigCounts)
+                    : MultiNumber.of(m.elements, m.counts);
+        }
+        var box = new NonEmptyBox(m);
+        if (box.hasVirtual) {
+            return box;
+        }
+        return BoxInterner.intern(box);
     }
     
     /**
-     * {@inheritDoc}
-     * @return A String consisting of nested [...]
+     * The number of empty boxes in a box.
+     * @param n The box
+     * @return the multiplicity of the empty box in n
      */
-    @Override
-    public String toString() {
-        var stj = new StringJoiner(" ", "[", "]");
-        content.forEach(m -> stj.add(m.toString()));
-        return stj.toString();
+    static BigInteger emptyCount(Box n) {
+        if (n instanceof AbstractBox a && a.distinctSize() > 0 
+                && a.distinct(0).isEmptyBox()) {
+            return a.bigMultiplicity(0);
+        }
+        return BigInteger.ZERO;
     }
     
     /**
-     * {@inheritDoc}
-     * @return A String consisting of nested [...] with the innermost box
-     * replaced by an integer
+     * Remove the elements that two boxes have in common.
+     * @param x One box
+     * @param y The other box
+     * @return x and y, each without the elements common to both.
      */
-    @Override
-    public String toIntegerString() {
-        int countOfEmptySets = 0;
-        var itr = content.iterator();
-        StringJoiner sj = null;
-        while (itr.hasNext()) {
-            var c = itr.next();
-            if (c.isEmptyBox()) {
-                countOfEmptySets++;
+    static Box[] cancel(Box x, Box y) {
+        if (x instanceof NaturalBox a && y instanceof NaturalBox b) {
+            var difference = a.bigValue().subtract(b.bigValue());
+            return new Box[]{NaturalBox.of(difference.max(BigInteger.ZERO)),
+                NaturalBox.of(difference.negate().max(BigInteger.ZERO))};
+        }
+        if (!(x instanceof AbstractBox a) || !(y instanceof AbstractBox b)) {
+            return new Box[]{x, y};
+        }
+        if (a.isBig() || b.isBig()) {
+            return cancelBig(a, b);
+        }
+        int aSize = a.distinctSize();
+        int bSize = b.distinctSize();
+        var aElements = new Box[aSize];
+        var aCounts = new long[aSize];
+        var bElements = new Box[bSize];
+        var bCounts = new long[bSize];
+        int i = 0;
+        int j = 0;
+        int m = 0;
+        int n = 0;
+        while (i < aSize || j < bSize) {
+            int c;
+            if (i == aSize) {
+                c = 1;
+            } else if (j == bSize) {
+                c = -1;
             } else {
-                sj = new StringJoiner(" ", "[", "]");
-                if (countOfEmptySets != 0) {
-                    for (int i = 0; i < countOfEmptySets; i++) {
-                        sj.add("0");
-                    }
+                c = a.distinct(i).compareTo(b.distinct(j));
+            }
+            if (c < 0) {
+                aElements[m] = a.distinct(i);
+                aCounts[m++] = a.multiplicity(i++);
+            } else if (c > 0) {
+                bElements[n] = b.distinct(j);
+                bCounts[n++] = b.multiplicity(j++);
+            } else {
+                long aCount = a.multiplicity(i);
+                long bCount = b.multiplicity(j);
+                long common = Math.min(aCount, bCount);
+                if (aCount > common) {
+                    aElements[m] = a.distinct(i);
+                    aCounts[m++] = aCount - common;
                 }
-                sj.add(c.toIntegerString());
-                finishLoop(itr, sj);         
-            }      
-        }
-        if (sj == null) {
-            var n = Integer.toString(countOfEmptySets);
-            return n;
-        } else {
-            return sj.toString();
+                if (bCount > common) {
+                    bElements[n] = b.distinct(j);
+                    bCounts[n++] = bCount - common;
+                }
+                i++;
+                j++;
+            }
         }
+        return new Box[]{ofSorted(aElements, aCounts, m),
+            ofSorted(bElements, bCounts, n)};
     }
     
-    private void finishLoop(Iterator<Box> itr, StringJoiner sj) {
-        while (itr.hasNext()) {
-            sj.add(itr.next().toIntegerString());
+    /**
+     * Remove the elements that two boxes have in common when either has a
+     * multiplicity too large for a long. Each remaining element is added
+     * with its multiplicity to one of two sums.
+     */
+    private static Box[] cancelBig(AbstractBox a, AbstractBox b) {
+        var aTerms = new BoxBuilder();
+        var bTerms = new BoxBuilder();
+        int i = 0;
+        int j = 0;
+        while (i < a.distinctSize() || j < b.distinctSize()) {
+            int c;
+            if (i == a.distinctSize()) {
+                c = 1;
+            } else if (j == b.distinctSize()) {
+                c = -1;
+            } else {
+                c = a.distinct(i).compareTo(b.distinct(j));
+            }
+            if (c < 0) {
+                aTerms.add(Box.of(a.distinct(i)), a.bigMultiplicity(i));
+                i++;
+            } else if (c > 0) {
+                bTerms.add(Box.of(b.distinct(j)), b.bigMultiplicity(j));
+                j++;
+            } else {
+                var difference = a.bigMultiplicity(i).subtract(b.bigMultiplicity(j));
+                if (difference.signum() > 0) {
+                    aTerms.add(Box.of(a.distinct(i)), difference);
+                } else if (difference.signum() < 0) {
+                    bTerms.add(Box.of(b.distinct(j)), difference.negate());
+                }
+                i++;
+                j++;
+            }
         }
+        return new Box[]{aTerms.build(), bTerms.build()};
+    }
+
+    /**
+     * The contribution of an element to the hash code of the box containing
+     * it. The hash code of a box is the sum of the contributions of its
+     * elements, so the hash code of the sum of two boxes is the sum of their
+     * hash codes. VirtualBox relies upon this property.
+     * @param box An element
+     * @return The mixed hash code of the element.
+     */
+    static int elementHash(Box box) {
+        return mix(box.hashCode());
     }
     
     /**
-     * {@inheritDoc}
-     * @return An iterator to the contents of this box.
+     * Mix the hash code of an element.
+     * @param hashCode The hash code of the element
+     * @return The contribution of the element to the hash code of a box
      */
+    static int mix(int hashCode) {
+        int h = hashCode + 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+    
+    private static boolean isVirtual(Box box) {
+        return box instanceof VirtualBox
+                || (box instanceof NonEmptyBox neb && neb.hasVirtual);
+    }
+    
+    /**
+     * Since a box is immutable it is its own copy.
+     * @return this Box
+     */
+    @Override
+    public NonEmptyBox clone() {
+        return this;
+    }
+        
+    @Override
+    boolean isBig() {
+        return bigCounts != null;
+    }
+        
+    @Override
+    long total() {
+        if (bigCounts != null) {
+            throw new ArithmeticException("size too large for a long");
+        }
+        return total;
+    }
+    
+    @Override
+    BigInteger bigTotal() {
+        return bigTotal != null ? bigTotal : BigInteger.valueOf(total);
+    }
+    
     @Override
-    public Iterator<Box> iterator() {
-        return content.iterator();
+    int distinctSize() {
+        return elements.length;
     }
-         
+    
+    @Override
+    Box distinct(int i) {
+        return elements[i];
+    }
+    
+    @Override
+    long multiplicity(int i) {
+        return counts != null ? counts[i] : bigCounts[i].longValueExact();
+    }
+    
+    @Override
+    BigInteger bigMultiplicity(int i) {
+        return counts != null ? BigInteger.valueOf(counts[i]) : bigCounts[i];
+    }
+    
     /**
      * {@inheritDoc}
      * Invokes the addNonEmptyBox method on the other parameter
@@ -222,28 +444,104 @@ public class NonEmptyBox implements Box {
      */
     @Override
     public Box addEmptyBox(EmptyBox other) {
-        return this.clone();
+        return this;
     }
        
     /**
      * {@inheritDoc}
-     * The sum of two non-empty mset is an mset containing the contents of both
-     * with any mset-anti-mset pairs removed.
+     * The sum of two non-empty mset is an mset containing the contents of both.
+     * Since the distinct elements of both are sorted the sum is formed by a
+     * single merge, adding the multiplicities of the elements common to both.
+     * The elements themselves are shared, not copied.
      * @param other The other non-empty mset
      * @return The sum of this and other.
      */
     @Override
     public Box addNonEmptyBox(NonEmptyBox other) {
-        List<Box> list = new LinkedList<>();
-        list.addAll(this.content);
-        list.addAll(other.getContent());
-        Box result;
-        if (!list.isEmpty()) {
-            result = new NonEmptyBox(list);
-        } else {
-            result = new EmptyBox();
+        return sum(this, other);
+    }
+    
+    /**
+     * Form the sum of two boxes by merging their sorted distinct elements.
+     * If a multiplicity does not fit in a long the sum is formed with
+     * BigIntegers.
+     * @param x One box
+     * @param y The other box
+     * @return x + y
+     */
+    static Box sum(AbstractBox x, AbstractBox y) {
+        if (x.isBig() || y.isBig()) {
+            return bigSum(x, y);
         }
-        return result;
+        try {
+            return longSum(x, y);
+        } catch (ArithmeticException ex) {
+            return bigSum(x, y);
+        }
+    }
+    
+    private static Box longSum(AbstractBox x, AbstractBox y) {
+        int xSize = x.distinctSize();
+        int ySize = y.distinctSize();
+        var boxs = new Box[xSize + ySize];
+        var multiplicities = new long[xSize + ySize];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < xSize && j < ySize) {
+            int c = x.distinct(i).compareTo(y.distinct(j));
+            if (c < 0) {
+                boxs[n] = x.distinct(i);
+                multiplicities[n++] = x.multiplicity(i++);
+            } else if (c > 0) {
+                boxs[n] = y.distinct(j);
+                multiplicities[n++] = y.multiplicity(j++);
+            } else {
+                boxs[n] = x.distinct(i);
+                multiplicities[n++] = Math.addExact(x.multiplicity(i++), y.multiplicity(j++));
+            }
+        }
+        while (i < xSize) {
+            boxs[n] = x.distinct(i);
+            multiplicities[n++] = x.multiplicity(i++);
+        }
+        while (j < ySize) {
+            boxs[n] = y.distinct(j);
+            multiplicities[n++] = y.multiplicity(j++);
+        }
+        return ofSorted(boxs, multiplicities, n);
+    }
+    
+    private static Box bigSum(AbstractBox x, AbstractBox y) {
+        int xSize = x.distinctSize();
+        int ySize = y.distinctSize();
+        var boxs = new Box[xSize + ySize];
+        var multiplicities = new BigInteger[xSize + ySize];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < xSize && j < ySize) {
+            int c = x.distinct(i).compareTo(y.distinct(j));
+            if (c < 0) {
+                boxs[n] = x.distinct(i);
+                multiplicities[n++] = x.bigMultiplicity(i++);
+            } else if (c > 0) {
+                boxs[n] = y.distinct(j);
+                multiplicities[n++] = y.bigMultiplicity(j++);
+            } else {
+                boxs[n] = x.distinct(i);
+                multiplicities[n++] = x.bigMultiplicity(i++).add(y.bigMultiplicity(j++));
+            }
+        }
+        while (i < xSize) {
+            boxs[n] = x.distinct(i);
+            multiplicities[n++] = x.bigMultiplicity(i++);
+        }
+        while (j < ySize) {
+            boxs[n] = y.distinct(j);
+            multiplicities[n++] = y.bigMultiplicity(j++);
+        }
+        return ofSorted(boxs, multiplicities, n);
     }
     
     /**
@@ -265,35 +563,224 @@ public class NonEmptyBox implements Box {
      */
     @Override
     public Box mulEmptyBox(EmptyBox other) {
-        return new EmptyBox();
+        return EmptyBox.ZERO;
     }
        
     /**
      * {@inheritDoc}
      * The product of two non-empty msets is the pair-wise sum of their contents.
+     * Each distinct pair is added once and given the product of the
+     * multiplicities.
      * @param other A non-empty mset
      * @return the product of the two non-empty msets
      */
     @Override
     public Box mulNonEmptyBox(NonEmptyBox other) {
-        List<Box> resultList = new ArrayList<>();
-        for (var msetX : this) {
-            for (var msetY : other) {
-                resultList.add(msetX.add(msetY));
+        return product(this, other);
+    }
+    
+    /**
+     * Form the product of two boxes. Each pair of distinct elements is
+     * added once and given the product of their multiplicities. A box
+     * multiplied by itself is squared. A large product is formed in
+     * parallel, see ForkJoinProduct.
+     * @param x One box
+     * @param y The other box
+     * @return x × y
+     */
+    static Box product(AbstractBox x, AbstractBox y) {
+        if (x == y) {
+            return square(x);
+        }
+        return product(x, y, Long.MAX_VALUE);
+    }
+
+    /**
+     * Form the product of two boxes without the elements of degree greater
+     * than maxDegree, see AbstractBox.degree. The pairs of distinct
+     * elements whose degrees add to more than maxDegree are skipped.
+     * @param x One box
+     * @param y The other box
+     * @param maxDegree The largest degree kept
+     * @return x × y, truncated
+     */
+    static Box product(AbstractBox x, AbstractBox y, long maxDegree) {
+        int xSize = x.distinctSize();
+        int ySize = y.distinctSize();
+        if (xSize == 0 || ySize == 0) {
+            return EmptyBox.ZERO;
+        }
+        long[] yDegrees = null;
+        if (maxDegree < Long.MAX_VALUE) {
+            yDegrees = new long[ySize];
+            for (int j = 0; j < ySize; j++) {
+                yDegrees[j] = degree(y.distinct(j));
             }
         }
-        Box result;
-        if (!resultList.isEmpty()) {
-            result = new NonEmptyBox(resultList);
+        var degrees = yDegrees;
+        Multiset m;
+        if (ForkJoinProduct.isParallel(xSize, (long) xSize * ySize)) {
+            m = ForkJoinProduct.invoke(xSize,
+                    (from, to) -> productRows(x, y, degrees, maxDegree, from, to), Multiset::merge);
         } else {
-            result = new EmptyBox();
+            m = productRows(x, y, degrees, maxDegree, 0, xSize);
+        }
+        return m.elements.length == 0 ? EmptyBox.ZERO : make(m);
+    }
+
+    /**
+     * The pairs formed by the distinct elements from to to - 1 of x whose
+     * degrees add to at most maxDegree. yDegrees is null if there is no
+     * bound. If a multiplicity does not fit in a long the rows are formed
+     * with BigIntegers.
+     */
+    private static Multiset productRows(AbstractBox x, AbstractBox y, long[] yDegrees,
+            long maxDegree, int from, int to) {
+        if (x.isBig() || y.isBig()) {
+            return bigProductRows(x, y, yDegrees, maxDegree, from, to);
+        }
+        try {
+            return longProductRows(x, y, yDegrees, maxDegree, from, to);
+        } catch (ArithmeticException ex) {
+            return bigProductRows(x, y, yDegrees, maxDegree, from, to);
+        }
+    }
+
+    private static Multiset longProductRows(AbstractBox x, AbstractBox y, long[] yDegrees,
+            long maxDegree, int from, int to) {
+        int ySize = y.distinctSize();
+        int n = (to - from) * ySize;
+        var boxs = new Box[n];
+        var multiplicities = new long[n];
+        int k = 0;
+        for (int i = from; i < to; i++) {
+            long limit = yDegrees == null ? 0 : maxDegree - degree(x.distinct(i));
+            for (int j = 0; j < ySize; j++) {
+                if (yDegrees != null && yDegrees[j] > limit) {
+                    continue;
+                }
+                boxs[k] = x.distinct(i).add(y.distinct(j));
+                multiplicities[k] = Math.multiplyExact(x.multiplicity(i), y.multiplicity(j));
+                k++;
+            }
+        }
+        return Multiset.combine(boxs, multiplicities, k);
+    }
+
+    private static Multiset bigProductRows(AbstractBox x, AbstractBox y, long[] yDegrees,
+            long maxDegree, int from, int to) {
+        int ySize = y.distinctSize();
+        int n = (to - from) * ySize;
+        var boxs = new Box[n];
+        var multiplicities = new BigInteger[n];
+        int k = 0;
+        for (int i = from; i < to; i++) {
+            long limit = yDegrees == null ? 0 : maxDegree - degree(x.distinct(i));
+            var mi = x.bigMultiplicity(i);
+            for (int j = 0; j < ySize; j++) {
+                if (yDegrees != null && yDegrees[j] > limit) {
+                    continue;
+                }
+                boxs[k] = x.distinct(i).add(y.distinct(j));
+                multiplicities[k] = mi.multiply(y.bigMultiplicity(j));
+                k++;
+            }
+        }
+        return Multiset.combine(boxs, multiplicities, k);
+    }
+
+    /**
+     * Form the square of a box. Each unordered pair of distinct elements
+     * is added once, and a pair of two different elements is given twice
+     * the product of their multiplicities.
+     * @param x The box
+     * @return x × x
+     */
+    static Box square(AbstractBox x) {
+        int size = x.distinctSize();
+        if (size == 0) {
+            return EmptyBox.ZERO;
+        }
+        if (ForkJoinProduct.isParallel(size, (long) size * (size + 1) / 2)) {
+            return make(ForkJoinProduct.invoke(size,
+                    (from, to) -> squareRows(x, from, to), Multiset::merge));
+        }
+        return make(squareRows(x, 0, size));
+    }
+
+    /**
+     * The unordered pairs whose first element is one of the distinct
+     * elements from to to - 1 of x. If a multiplicity does not fit in a
+     * long the rows are formed with BigIntegers.
+     */
+    private static Multiset squareRows(AbstractBox x, int from, int to) {
+        if (x.isBig()) {
+            return bigSquareRows(x, from, to);
+        }
+        try {
+            return longSquareRows(x, from, to);
+        } catch (ArithmeticException ex) {
+            return bigSquareRows(x, from, to);
         }
-        return result;        
     }
-    
 
     /**
-     * Determine of this non-empty mset and the other are equal. 
+     * The number of unordered pairs whose first element is one of the
+     * distinct elements from to to - 1 of a box of the given size.
+     */
+    private static int squarePairs(int size, int from, int to) {
+        return (to - from) * size - (int) ((long) (from + to - 1) * (to - from) / 2);
+    }
+
+    private static Multiset longSquareRows(AbstractBox x, int from, int to) {
+        int size = x.distinctSize();
+        int n = squarePairs(size, from, to);
+        var boxs = new Box[n];
+        var multiplicities = new long[n];
+        int k = 0;
+        for (int i = from; i < to; i++) {
+            var xi = x.distinct(i);
+            long mi = x.multiplicity(i);
+            boxs[k] = xi.add(xi);
+            multiplicities[k] = Math.multiplyExact(mi, mi);
+            k++;
+            long twice = Math.multiplyExact(mi, 2);
+            for (int j = i + 1; j < size; j++) {
+                boxs[k] = xi.add(x.distinct(j));
+                multiplicities[k] = Math.multiplyExact(twice, x.multiplicity(j));
+                k++;
+            }
+        }
+        return Multiset.combine(boxs, multiplicities, n);
+    }
+
+    private static Multiset bigSquareRows(AbstractBox x, int from, int to) {
+        int size = x.distinctSize();
+        int n = squarePairs(size, from, to);
+        var boxs = new Box[n];
+        var multiplicities = new BigInteger[n];
+        int k = 0;
+        for (int i = from; i < to; i++) {
+            var xi = x.distinct(i);
+            var mi = x.bigMultiplicity(i);
+            boxs[k] = xi.add(xi);
+            multiplicities[k] = mi.multiply(mi);
+            k++;
+            var twice = mi.shiftLeft(1);
+            for (int j = i + 1; j < size; j++) {
+                boxs[k] = xi.add(x.distinct(j));
+                multiplicities[k] = twice.multiply(x.bigMultiplicity(j));
+                k++;
+            }
+        }
+        return Multiset.combine(boxs, multiplicities, n);
+    }
+
+    /**
+     * Determine of this non-empty mset and the other are equal. Both sets
+     * of distinct elements are sorted by the same total order, so the boxes
+     * are equal when the elements and multiplicities match position by
+     * position. Differing hash codes, sizes or heights are rejected first.
      * @param o The other non-empty mset
      * @return True if they are equal.
      */
@@ -303,152 +790,256 @@ public class NonEmptyBox implements Box {
         if (this == o) return true;
         if (this.getClass() == o.getClass()) {
             NonEmptyBox other = (NonEmptyBox)o;
-            var thisContent = this.content;
-            var otherContent = other.clone().content;
-            if (thisContent.size() != otherContent.size()) {
+            if (hash != other.hash || total != other.total
+                    || height != other.height
+                    || elements.length != other.elements.length
+                    || !Arrays.equals(counts, other.counts)
+                    || !Arrays.equals(bigCounts, other.bigCounts)) {
                 return false;
             }
-            boolean found = false;
-            for (var x : thisContent) {
-                var itr2 = otherContent.iterator();
-                found = false;
-                while (!found && itr2.hasNext()) {
-                    var y = itr2.next();
-                    if (x.equals(y)) {
-                        found = true;
-                        itr2.remove();
-                    }
-                }
-                if (!found) {
+            for (int i = 0; i < elements.length; i++) {
+                if (!elements[i].equals(other.elements[i])) {
                     return false;
                 }
             }
-            return found;
+            return true;
         } else {
             return false;
         }
     }
     
-    List<List<Box>> groupEquals() {
-        List<List<Box>> result = new ArrayList<>();
-        var c = new LinkedList<>(content);
-        while (!c.isEmpty()) {
-            List<Box> subList = new ArrayList<>();
-            var itr = c.iterator();
-            var m = itr.next();
-            subList.add(m);
-            itr.remove();
-            while (itr.hasNext()) {
-                var x = itr.next();
-                if (m.equals(x)) {
-                    subList.add(x);
-                    itr.remove();
-                }
-            }
-            result.add(subList);
-        }        
-        return result;
+    /**
+     * The hash code is computed from the structure of the box, so that
+     * equal boxes have equal hash codes.
+     * @return The structural hash code
+     */
+    @Override
+    public int hashCode() {
+        return hash;
     }
     
+    @Override
+    public int getHeight() {
+        return height;
+    }
     
     /**
-     * {@inheritDoc }
-     * @return A polynumber representation of this mset.
+     * The distinct elements and multiplicities resulting from combining
+     * an unsorted array of boxes that may contain duplicates. The counts
+     * are held as BigIntegers exactly when their sum does not fit in a
+     * long.
      */
-    @Override
-    public String asPolyNumber() {
-        List<List<Box>> list = groupEquals();
-        var stringJoiner = new StringJoiner("+");
-        list.forEach(el ->{
-            int count = el.size();
-            Box first = el.get(0);
-            var stringBuilder = new StringBuilder();
-            if (first.getHeight() == 0) {
-                stringBuilder.append(Integer.toString(count));
-            } else {
-                if (count > 1) {
-                    stringBuilder.append(Integer.toString(count));
+    private static final class Multiset {
+        
+        final Box[] elements;
+        final long[] counts;
+        final BigInteger[] bigCounts;
+        
+        private Multiset(Box[] elements, long[] counts, BigInteger[] bigCounts) {
+            this.elements = elements;
+            this.counts = counts;
+            this.bigCounts = bigCounts;
+        }
+        
+        /**
+         * The multiset with the given counts, held as BigIntegers if their
+         * sum does not fit in a long.
+         * @param elements The distinct sorted elements
+         * @param counts The multiplicity of each element
+         * @return the multiset
+         */
+        static Multiset of(Box[] elements, long[] counts) {
+            long t = 0;
+            for (long count : counts) {
+                t += count;
+                if (t < 0) {
+                    var big = new BigInteger[counts.length];
+                    for (int i = 0; i < counts.length; i++) {
+                        big[i] = BigInteger.valueOf(counts[i]);
+                    }
+                    return new Multiset(elements, null, big);
                 }
-                stringBuilder.append(genSupSub((NonEmptyBox)first));
             }
-            stringJoiner.add(stringBuilder);
-        });
-        var result = stringJoiner.toString();
-        return result;
-    }
-    
-    String genSupSub(NonEmptyBox m) {
-        var ll = m.groupEquals();
-        var stb = new StringBuilder();
-        ll.forEach(el ->{
-            stb.append("\u03B1");
-            stb.append(genSub(el.get(0).intSize()));
-            var count = countSets(el);
-            if (count < 0) {
-                stb.append("\u207B");
-                stb.append(genSup(-count));
-            } else if (count > 1) {
-                stb.append(genSup(count));
+            return new Multiset(elements, counts, null);
+        }
+        
+        /**
+         * The multiset with the given counts, held as longs if their sum
+         * fits in a long.
+         * @param elements The distinct sorted elements
+         * @param counts The multiplicity of each element
+         * @return the multiset
+         */
+        static Multiset of(Box[] elements, BigInteger[] counts) {
+            var t = BigInteger.ZERO;
+            for (var count : counts) {
+                t = t.add(count);
             }
-        });
-        return stb.toString();      
-    }
-    
-    int countSets(List<Box> el) {
-        return el.size();
-    }
-
-    
-    String genSub(int n) {
-        var stb = new StringBuilder();
-        var s = Integer.toString(n);
-        for (int i = 0; i < s.length(); i++) {
-            var k = (s.charAt(i) - '0');
-            stb.append(subScripts[k]);
+            if (t.bitLength() < Long.SIZE) {
+                var small = new long[counts.length];
+                for (int i = 0; i < counts.length; i++) {
+                    small[i] = counts[i].longValue();
+                }
+                return new Multiset(elements, small, null);
+            }
+            return new Multiset(elements, null, counts);
+        }
+        
+        boolean isBig() {
+            return bigCounts != null;
+        }
+        
+        BigInteger count(int i) {
+            return counts != null ? BigInteger.valueOf(counts[i]) : bigCounts[i];
+        }
+        
+        /**
+         * The indices of the first n boxes in the order of compareTo.
+         */
+        private static Integer[] order(Box[] boxs, int n) {
+            var order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (i, j) -> boxs[i].compareTo(boxs[j]));
+            return order;
+        }
+        
+        /**
+         * Sort the boxes and combine equal boxes by adding their
+         * multiplicities.
+         * @param boxs The boxes
+         * @param multiplicities The multiplicity of each box
+         * @param n The number of entries to use
+         * @return the combined distinct elements and counts
+         */
+        static Multiset combine(Box[] boxs, long[] multiplicities, int n) {
+            var order = order(boxs, n);
+            var elements = new Box[n];
+            var counts = new long[n];
+            int size = 0;
+            for (int k = 0; k < n; k++) {
+                var box = boxs[order[k]];
+                var count = multiplicities[order[k]];
+                if (size > 0 && box.compareTo(elements[size - 1]) == 0) {
+                    long sum = counts[size - 1] + count;
+                    if (sum < 0) {
+                        return combine(boxs, Convolution.toBig(Arrays.copyOf(multiplicities, n)), n);
+                    }
+                    counts[size - 1] = sum;
+                } else {
+                    elements[size] = box;
+                    counts[size] = count;
+                    size++;
+                }
+            }
+            return of(Arrays.copyOf(elements, size), Arrays.copyOf(counts, size));
+        }
+        
+        /**
+         * Sort the boxes and combine equal boxes by adding their
+         * multiplicities, which may not fit in a long.
+         * @param boxs The boxes
+         * @param multiplicities The multiplicity of each box
+         * @param n The number of entries to use
+         * @return the combined distinct elements and counts
+         */
+        static Multiset combine(Box[] boxs, BigInteger[] multiplicities, int n) {
+            var order = order(boxs, n);
+            var elements = new Box[n];
+            var counts = new BigInteger[n];
+            int size = 0;
+            for (int k = 0; k < n; k++) {
+                var box = boxs[order[k]];
+                var count = multiplicities[order[k]];
+                if (size > 0 && box.compareTo(elements[size - 1]) == 0) {
+                    counts[size - 1] = counts[size - 1].add(count);
+                } else {
+                    elements[size] = box;
+                    counts[size] = count;
+                    size++;
+                }
+            }
+            return of(Arrays.copyOf(elements, size), Arrays.copyOf(counts, size));
         }
-        return stb.toString();
-    }
 
-    String genSup(int n) {
-        var stb = new StringBuilder();
-        var s = Integer.toString(n);
-        for (int i = 0; i < s.length(); i++) {
-            var k = (s.charAt(i) - '0');
-            stb.append(superScripts[k]);
+        /**
+         * Merge two multisets, adding the multiplicities of the elements
+         * they have in common.
+         * @param x One multiset
+         * @param y The other multiset
+         * @return the combined distinct elements and counts
+         */
+        static Multiset merge(Multiset x, Multiset y) {
+            if (x.isBig() || y.isBig()) {
+                return bigMerge(x, y);
+            }
+            int xSize = x.elements.length;
+            int ySize = y.elements.length;
+            var elements = new Box[xSize + ySize];
+            var counts = new long[xSize + ySize];
+            int i = 0;
+            int j = 0;
+            int size = 0;
+            while (i < xSize && j < ySize) {
+                int c = x.elements[i].compareTo(y.elements[j]);
+                if (c < 0) {
+                    elements[size] = x.elements[i];
+                    counts[size++] = x.counts[i++];
+                } else if (c > 0) {
+                    elements[size] = y.elements[j];
+                    counts[size++] = y.counts[j++];
+                } else {
+                    long sum = x.counts[i++] + y.counts[j++];
+                    if (sum < 0) {
+                        return bigMerge(x, y);
+                    }
+                    elements[size] = x.elements[i - 1];
+                    counts[size++] = sum;
+                }
+            }
+            while (i < xSize) {
+                elements[size] = x.elements[i];
+                counts[size++] = x.counts[i++];
+            }
+            while (j < ySize) {
+                elements[size] = y.elements[j];
+                counts[size++] = y.counts[j++];
+            }
+            return of(Arrays.copyOf(elements, size), Arrays.copyOf(counts, size));
         }
-        return stb.toString();
-    }
-    
-    /**
-     * Return a copy of the content as a list.
-     * @return The content as a list.
-     */
-    @Override
-    public List<Box> getContent() {
-        return new ArrayList<>(content);
-    }
-    
-    @Override
-    public int getHeight() {
-        return height;
-    }
 
-    
-    @Override
-    public Box eval(Box A) {
-        Box result = new EmptyBox();
-        if (A.isEmptyBox()) {
-            return Box.of(result);
-        }
-        for (Box b:content) {
-            if (b.isEmptyBox()) {
-                result = result.add(Box.of(1));
-            } else {
-                result = result.add(A.pow(b));
+        private static Multiset bigMerge(Multiset x, Multiset y) {
+            int xSize = x.elements.length;
+            int ySize = y.elements.length;
+            var elements = new Box[xSize + ySize];
+            var counts = new BigInteger[xSize + ySize];
+            int i = 0;
+            int j = 0;
+            int size = 0;
+            while (i < xSize && j < ySize) {
+                int c = x.elements[i].compareTo(y.elements[j]);
+                if (c < 0) {
+                    elements[size] = x.elements[i];
+                    counts[size++] = x.count(i++);
+                } else if (c > 0) {
+                    elements[size] = y.elements[j];
+                    counts[size++] = y.count(j++);
+                } else {
+                    elements[size] = x.elements[i];
+                    counts[size++] = x.count(i++).add(y.count(j++));
+                }
             }
-            
+            while (i < xSize) {
+                elements[size] = x.elements[i];
+                counts[size++] = x.count(i++);
+            }
+            while (j < ySize) {
+                elements[size] = y.elements[j];
+                counts[size++] = y.count(j++);
+            }
+            return of(Arrays.copyOf(elements, size), Arrays.copyOf(counts, size));
         }
-        return result;
     }
     
 }
@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Exact multiplication of coefficient arrays by the number-theoretic
+ * transform. The product is computed modulo several primes of the form
+ * c·2^23 + 1 less than 2^31, for which transforms of length up to 2^23
+ * exist, and the coefficients are recovered from their residues by the
+ * Chinese remainder theorem in Garner's mixed-radix form.
+ * <p>
+ * One more prime is used than the size of the coefficients requires. The
+ * top mixed-radix digit is then 0 for a non-negative coefficient and
+ * p - 1 for a negative one, which gives the sign.
+ * <p>
+ * When an array is multiplied by itself it is reduced and transformed only
+ * once.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+final class NumberTheoreticTransform {
+
+    /** The base 2 logarithm of the longest transform. */
+    static final int MAX_LOG_LENGTH = 23;
+
+    /** The primes, largest first. */
+    private static final long[] PRIMES;
+
+    /** A primitive root of each prime. */
+    private static final long[] GENERATORS;
+
+    /** INVERSES[i][j] is the inverse of PRIMES[j] modulo PRIMES[i], j &lt; i. */
+    private static final long[][] INVERSES;
+
+    static {
+        var primes = new ArrayList<Long>();
+        for (long c = (1L << (31 - MAX_LOG_LENGTH)) - 1; c > 0; c--) {
+            long p = (c << MAX_LOG_LENGTH) + 1;
+            if (BigInteger.valueOf(p).isProbablePrime(64)) {
+                primes.add(p);
+            }
+        }
+        PRIMES = primes.stream().mapToLong(Long::longValue).toArray();
+        GENERATORS = new long[PRIMES.length];
+        INVERSES = new long[PRIMES.length][];
+        for (int i = 0; i < PRIMES.length; i++) {
+            GENERATORS[i] = primitiveRoot(PRIMES[i]);
+            INVERSES[i] = new long[i];
+            for (int j = 0; j < i; j++) {
+                INVERSES[i][j] = power(PRIMES[j] % PRIMES[i], PRIMES[i] - 2, PRIMES[i]);
+            }
+        }
+    }
+
+    private NumberTheoreticTransform() {}
+
+    /**
+     * The length of the longest product that can be formed.
+     * @return the maximum length of the result
+     */
+    static int maxLength() {
+        return 1 << MAX_LOG_LENGTH;
+    }
+
+    /**
+     * The number of primes needed for coefficients of the given size.
+     * @param bits The number of bits of the largest coefficient, not
+     * counting the sign
+     * @return the number of primes, or -1 if there are not enough
+     */
+    static int primesFor(int bits) {
+        double capacity = 0;
+        for (int k = 0; k < PRIMES.length; k++) {
+            if (capacity > bits + 1) {
+                return k + 1;
+            }
+            capacity += Math.log(PRIMES[k]) / Math.log(2);
+        }
+        return -1;
+    }
+
+    /**
+     * Multiply two coefficient arrays. The product is exact modulo 2^64,
+     * so it is exact when the result fits in a long.
+     * @param a One coefficient array
+     * @param b The other coefficient array
+     * @param primes The number of primes to use, see primesFor
+     * @return The coefficients of the product
+     */
+    static long[] multiply(long[] a, long[] b, int primes) {
+        var ra = residues(a, primes);
+        var digits = digits(ra, a == b ? ra : residues(b, primes), a.length + b.length - 1);
+        int top = primes - 1;
+        var result = new long[a.length + b.length - 1];
+        for (int t = 0; t < result.length; t++) {
+            long x = 0;
+            long radix = 1;
+            for (int i = 0; i < primes; i++) {
+                x += digits[i][t] * radix;
+                radix *= PRIMES[i];
+            }
+            result[t] = digits[top][t] != 0 ? x - radix : x;
+        }
+        return result;
+    }
+
+    /**
+     * Multiply two coefficient arrays exactly.
+     * @param a One coefficient array
+     * @param b The other coefficient array
+     * @param primes The number of primes to use, see primesFor
+     * @return The coefficients of the product
+     */
+    static BigInteger[] multiply(BigInteger[] a, BigInteger[] b, int primes) {
+        var ra = residues(a, primes);
+        var digits = digits(ra, a == b ? ra : residues(b, primes), a.length + b.length - 1);
+        int top = primes - 1;
+        var modulus = BigInteger.ONE;
+        for (int i = 0; i < primes; i++) {
+            modulus = modulus.multiply(BigInteger.valueOf(PRIMES[i]));
+        }
+        var result = new BigInteger[a.length + b.length - 1];
+        for (int t = 0; t < result.length; t++) {
+            var x = BigInteger.valueOf(digits[top][t]);
+            for (int i = top - 1; i >= 0; i--) {
+                x = x.multiply(BigInteger.valueOf(PRIMES[i])).add(BigInteger.valueOf(digits[i][t]));
+            }
+            result[t] = digits[top][t] != 0 ? x.subtract(modulus) : x;
+        }
+        return result;
+    }
+
+    /**
+     * One of the primes.
+     * @param i The index of the prime, the largest being 0
+     * @return the prime
+     */
+    static long prime(int i) {
+        return PRIMES[i];
+    }
+
+    /**
+     * Multiply two arrays of residues modulo one of the primes.
+     * @param a One array, of residues from 0 to p - 1
+     * @param b The other array, of residues from 0 to p - 1
+     * @param i The index of the prime p
+     * @return The residues of the coefficients of the product
+     */
+    static long[] multiplyModulo(long[] a, long[] b, int i) {
+        return convolve(a, b, a.length + b.length - 1, PRIMES[i], GENERATORS[i]);
+    }
+
+    private static long[][] residues(long[] a, int primes) {
+        var result = new long[primes][a.length];
+        for (int i = 0; i < primes; i++) {
+            for (int t = 0; t < a.length; t++) {
+                result[i][t] = Math.floorMod(a[t], PRIMES[i]);
+            }
+        }
+        return result;
+    }
+
+    private static long[][] residues(BigInteger[] a, int primes) {
+        var result = new long[primes][a.length];
+        for (int i = 0; i < primes; i++) {
+            var p = BigInteger.valueOf(PRIMES[i]);
+            for (int t = 0; t < a.length; t++) {
+                result[i][t] = a[t].mod(p).longValue();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Convolve the residues modulo each prime and convert the results to
+     * mixed-radix digits.
+     * @return digits[i][t], digit i of coefficient t
+     */
+    private static long[][] digits(long[][] ra, long[][] rb, int length) {
+        int primes = ra.length;
+        var digits = new long[primes][];
+        for (int i = 0; i < primes; i++) {
+            digits[i] = convolve(ra[i], rb[i], length, PRIMES[i], GENERATORS[i]);
+        }
+        for (int i = 1; i < primes; i++) {
+            long p = PRIMES[i];
+            var d = digits[i];
+            for (int t = 0; t < length; t++) {
+                long x = d[t];
+                for (int j = 0; j < i; j++) {
+                    x = Math.floorMod(x - digits[j][t], p) * INVERSES[i][j] % p;
+                }
+                d[t] = x;
+            }
+        }
+        return digits;
+    }
+
+    /**
+     * The cyclic convolution of two residue arrays modulo p, of a length
+     * large enough that no wrapping occurs.
+     */
+    private static long[] convolve(long[] a, long[] b, int length, long p, long g) {
+        int n = Integer.highestOneBit(Math.max(1, length - 1)) << 1;
+        var fa = Arrays.copyOf(a, n);
+        transform(fa, p, g, false);
+        var fb = fa;
+        if (a != b) {
+            fb = Arrays.copyOf(b, n);
+            transform(fb, p, g, false);
+        }
+        for (int i = 0; i < n; i++) {
+            fa[i] = fa[i] * fb[i] % p;
+        }
+        transform(fa, p, g, true);
+        long scale = power(n, p - 2, p);
+        var result = new long[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = fa[i] * scale % p;
+        }
+        return result;
+    }
+
+    /**
+     * The iterative radix-2 transform in place.
+     */
+    private static void transform(long[] a, long p, long g, boolean inverse) {
+        int n = a.length;
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                long t = a[i];
+                a[i] = a[j];
+                a[j] = t;
+            }
+        }
+        var twiddles = new long[n / 2];
+        for (int len = 2; len <= n; len <<= 1) {
+            int half = len >> 1;
+            long w = power(g, (p - 1) / len, p);
+            if (inverse) {
+                w = power(w, p - 2, p);
+            }
+            twiddles[0] = 1;
+            for (int k = 1; k < half; k++) {
+                twiddles[k] = twiddles[k - 1] * w % p;
+            }
+            for (int i = 0; i < n; i += len) {
+                for (int k = 0; k < half; k++) {
+                    long u = a[i + k];
+                    long v = a[i + k + half] * twiddles[k] % p;
+                    long sum = u + v;
+                    a[i + k] = sum >= p ? sum - p : sum;
+                    long difference = u - v;
+                    a[i + k + half] = difference < 0 ? difference + p : difference;
+                }
+            }
+        }
+    }
+
+    private static long power(long base, long exponent, long p) {
+        long result = 1;
+        base %= p;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                result = result * base % p;
+            }
+            base = base * base % p;
+            exponent >>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Find a generator of the multiplicative group modulo a prime.
+     */
+    private static long primitiveRoot(long p) {
+        var factors = new ArrayList<Long>();
+        long m = p - 1;
+        for (long q = 2; q * q <= m; q++) {
+            if (m % q == 0) {
+                factors.add(q);
+                while (m % q == 0) {
+                    m /= q;
+                }
+            }
+        }
+        if (m > 1) {
+            factors.add(m);
+        }
+        for (long g = 2;; g++) {
+            boolean generator = true;
+            for (long q : factors) {
+                if (power(g, (p - 1) / q, p) == 1) {
+                    generator = false;
+                    break;
+                }
+            }
+            if (generator) {
+                return g;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,589 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * This class models a polynumber, a box whose elements are natural numbers.
+ * The natural number k stands for α^k, so the box [0 0 2 2 2 5] is the
+ * polynumber 2 + 3α² + α⁵. The polynumber is held as the array of its
+ * coefficients, coefficient k being the multiplicity of k, so that addition
+ * and multiplication work on the coefficients rather than on the elements.
+ * <p>
+ * The coefficients are held as longs, or as BigIntegers when the size of
+ * the box does not fit in a long. A polynumber is represented by this class
+ * when its coefficients are dense; a polynumber with a few terms of large
+ * degree is a SparsePolyNumber.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public final class PolyNumber extends AbstractBox {
+
+    /** A polynumber of at most this degree is always dense. */
+    static final int MIN_DENSE_DEGREE = 32;
+
+    /**
+     * A polynumber is dense if its degree is at most this many times the
+     * number of its terms.
+     */
+    static final int DENSITY = 4;
+
+    /** The largest degree of a PolyNumber, limited by the array size. */
+    static final int MAX_DEGREE = Integer.MAX_VALUE - 8;
+
+    /** The coefficients, or null if they are held as BigIntegers. */
+    private final long[] coefficients;
+
+    /** The coefficients if the size does not fit in a long, otherwise null. */
+    private final BigInteger[] bigCoefficients;
+
+    /** The exponents whose coefficient is not zero, in increasing order. */
+    private final int[] exponents;
+
+    private final long total;
+
+    private final BigInteger bigTotal;
+
+    private final int hash;
+
+    /**
+     * Construct a PolyNumber. Exactly one of the arrays is not null, it
+     * becomes owned by this box. Its last coefficient is not zero and
+     * there are at least two coefficients.
+     * @param coefficients The coefficients as longs
+     * @param bigCoefficients The coefficients as BigIntegers
+     */
+    private PolyNumber(long[] coefficients, BigInteger[] bigCoefficients) {
+        this.coefficients = coefficients;
+        this.bigCoefficients = bigCoefficients;
+        int length = coefficients != null ? coefficients.length : bigCoefficients.length;
+        var exps = new int[length];
+        int n = 0;
+        int h = 0;
+        long t = 0;
+        var bt = BigInteger.ZERO;
+        int unit = NonEmptyBox.elementHash(EmptyBox.ZERO);
+        for (int k = 0; k < length; k++) {
+            int c;
+            if (coefficients != null) {
+                if (coefficients[k] == 0) {
+                    continue;
+                }
+                c = (int) coefficients[k];
+                t += coefficients[k];
+            } else {
+                if (bigCoefficients[k].signum() == 0) {
+                    continue;
+                }
+                c = bigCoefficients[k].intValue();
+                bt = bt.add(bigCoefficients[k]);
+            }
+            exps[n++] = k;
+            h += c * NonEmptyBox.mix(k * unit);
+        }
+        exponents = Arrays.copyOf(exps, n);
+        hash = h;
+        total = t;
+        bigTotal = bigCoefficients != null ? bt : null;
+    }
+
+    /**
+     * Determine if a polynumber of the given degree and number of terms
+     * is represented by this class.
+     * @param degree The degree
+     * @param terms The number of nonzero coefficients
+     * @return true if the polynumber is dense
+     */
+    static boolean isDense(long degree, int terms) {
+        return degree <= MAX_DEGREE
+                && (degree <= MIN_DENSE_DEGREE || degree <= (long) DENSITY * terms);
+    }
+
+    /**
+     * Create the polynumber with the given coefficients. The coefficient
+     * at index k is the coefficient of α^k. If any of the coefficients is
+     * negative the result is a VirtualBox.
+     * @param coefficients The coefficients
+     * @return The canonical box
+     */
+    public static Box of(long... coefficients) {
+        var positive = new long[coefficients.length];
+        var negative = new long[coefficients.length];
+        boolean hasNegative = false;
+        for (int k = 0; k < coefficients.length; k++) {
+            if (coefficients[k] < 0) {
+                negative[k] = Math.negateExact(coefficients[k]);
+                hasNegative = true;
+            } else {
+                positive[k] = coefficients[k];
+            }
+        }
+        if (hasNegative) {
+            return new VirtualBox(normalize(positive), normalize(negative));
+        }
+        return normalize(positive);
+    }
+
+    /**
+     * Create the polynumber with the given coefficients. The coefficient
+     * at index k is the coefficient of α^k. If any of the coefficients is
+     * negative the result is a VirtualBox.
+     * @param coefficients The coefficients
+     * @return The canonical box
+     */
+    public static Box of(BigInteger... coefficients) {
+        var positive = new BigInteger[coefficients.length];
+        var negative = new BigInteger[coefficients.length];
+        boolean hasNegative = false;
+        for (int k = 0; k < coefficients.length; k++) {
+            positive[k] = coefficients[k].max(BigInteger.ZERO);
+            negative[k] = coefficients[k].negate().max(BigInteger.ZERO);
+            hasNegative |= coefficients[k].signum() < 0;
+        }
+        if (hasNegative) {
+            return new VirtualBox(normalize(positive), normalize(negative));
+        }
+        return normalize(positive);
+    }
+
+    /**
+     * Find the polynumber of degree less than the number of points that
+     * takes the given values at the points. The polynumber is found from
+     * its divided differences. If it has negative coefficients the result
+     * is a VirtualBox.
+     * @param points The values of α, all different
+     * @param values The value at each point
+     * @return The polynumber
+     * @throws IllegalArgumentException if the arrays differ in length or a
+     * point is repeated
+     * @throws ArithmeticException if the polynumber does not have integer
+     * coefficients
+     */
+    public static Box interpolate(BigInteger[] points, BigInteger[] values) {
+        if (points.length != values.length) {
+            throw new IllegalArgumentException("There are " + points.length
+                    + " points and " + values.length + " values");
+        }
+        return of(Interpolation.interpolate(points, values));
+    }
+
+    /**
+     * Create the canonical box with the given coefficients.
+     * @param c The coefficients, which are not negative. The array
+     * becomes owned by the result.
+     * @return The canonical box
+     */
+    static Box normalize(long[] c) {
+        int length = c.length;
+        while (length > 0 && c[length - 1] == 0) {
+            length--;
+        }
+        if (length <= 1) {
+            return length == 0 ? EmptyBox.ZERO : NaturalBox.of(c[0]);
+        }
+        int terms = 0;
+        long t = 0;
+        for (int k = 0; k < length; k++) {
+            if (c[k] != 0) {
+                terms++;
+                t += c[k];
+                if (t < 0) {
+                    return normalize(Convolution.toBig(c));
+                }
+            }
+        }
+        if (!isDense(length - 1, terms)) {
+            var exps = new long[terms];
+            var coefs = new long[terms];
+            int n = 0;
+            for (int k = 0; k < length; k++) {
+                if (c[k] != 0) {
+                    exps[n] = k;
+                    coefs[n++] = c[k];
+                }
+            }
+            return SparsePolyNumber.normalize(exps, coefs, n);
+        }
+        if (length < c.length) {
+            c = Arrays.copyOf(c, length);
+        }
+        return BoxInterner.intern(new PolyNumber(c, null));
+    }
+
+    /**
+     * Create the canonical box with the given coefficients. A polynumber
+     * whose size does not fit in a long is always held in dense form.
+     * @param c The coefficients, which are not negative. The array
+     * becomes owned by the result.
+     * @return The canonical box
+     */
+    static Box normalize(BigInteger[] c) {
+        int length = c.length;
+        while (length > 0 && c[length - 1].signum() == 0) {
+            length--;
+        }
+        if (length <= 1) {
+            return length == 0 ? EmptyBox.ZERO : NaturalBox.of(c[0]);
+        }
+        var t = BigInteger.ZERO;
+        for (int k = 0; k < length; k++) {
+            t = t.add(c[k]);
+        }
+        if (t.bitLength() < Long.SIZE) {
+            var small = new long[length];
+            for (int k = 0; k < length; k++) {
+                small[k] = c[k].longValue();
+            }
+            return normalize(small);
+        }
+        if (length < c.length) {
+            c = Arrays.copyOf(c, length);
+        }
+        return BoxInterner.intern(new PolyNumber(null, c));
+    }
+
+    /**
+     * The degree of this polynumber.
+     * @return the largest exponent with a nonzero coefficient
+     */
+    public int degree() {
+        return exponents[exponents.length - 1];
+    }
+
+    /**
+     * The coefficient of α^k.
+     * @param k The exponent
+     * @return the multiplicity of k in this box
+     */
+    public BigInteger coefficient(int k) {
+        if (k < 0 || k > degree()) {
+            return BigInteger.ZERO;
+        }
+        return coefficients != null ? BigInteger.valueOf(coefficients[k]) : bigCoefficients[k];
+    }
+
+    /**
+     * The exponent of the i-th distinct element.
+     * @param i The index
+     * @return the i-th exponent with a nonzero coefficient
+     */
+    int exponent(int i) {
+        return exponents[i];
+    }
+
+    /**
+     * The coefficients, if they are held as longs.
+     * @return the coefficients, or null if they are BigIntegers
+     */
+    long[] longCoefficients() {
+        return coefficients;
+    }
+
+    /**
+     * The coefficients as BigIntegers.
+     * @return the coefficients, which must not be modified
+     */
+    BigInteger[] bigCoefficients() {
+        return bigCoefficients != null ? bigCoefficients : Convolution.toBig(coefficients);
+    }
+
+    @Override
+    boolean isBig() {
+        return bigCoefficients != null;
+    }
+
+    @Override
+    long total() {
+        if (bigCoefficients != null) {
+            throw new ArithmeticException("size too large for a long");
+        }
+        return total;
+    }
+
+    @Override
+    BigInteger bigTotal() {
+        return bigTotal != null ? bigTotal : BigInteger.valueOf(total);
+    }
+
+    @Override
+    int distinctSize() {
+        return exponents.length;
+    }
+
+    @Override
+    Box distinct(int i) {
+        return NaturalBox.ofCount(exponents[i]);
+    }
+
+    @Override
+    long multiplicity(int i) {
+        int k = exponents[i];
+        return coefficients != null ? coefficients[k] : bigCoefficients[k].longValueExact();
+    }
+
+    @Override
+    BigInteger bigMultiplicity(int i) {
+        return coefficient(exponents[i]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The truncation is found by indexing the coefficients.
+     */
+    @Override
+    public Box tB(Box b) {
+        long k;
+        if (b.isEmptyBox()) {
+            k = 0;
+        } else if (b instanceof NaturalBox n && !n.isBig()) {
+            k = n.longValue();
+        } else {
+            return EmptyBox.ZERO;
+        }
+        if (k > degree()) {
+            return EmptyBox.ZERO;
+        }
+        if (coefficients != null) {
+            var c = new long[(int) k + 1];
+            c[(int) k] = coefficients[(int) k];
+            return normalize(c);
+        }
+        var c = new BigInteger[(int) k + 1];
+        Arrays.fill(c, BigInteger.ZERO);
+        c[(int) k] = bigCoefficients[(int) k];
+        return normalize(c);
+    }
+
+    @Override
+    public boolean isEmptyBox() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The nonzero coefficients are taken from the highest degree down by
+     * Horner's rule.
+     */
+    @Override
+    public Box eval(Box A) {
+        if (A.isEmptyBox()) {
+            return Box.of(EmptyBox.ZERO);
+        }
+        int d = degree();
+        var exponents = new long[d + 1];
+        var terms = new Box[d + 1];
+        int n = 0;
+        for (int k = d; k >= 0; k--) {
+            if (coefficients != null ? coefficients[k] != 0 : bigCoefficients[k].signum() != 0) {
+                exponents[n] = k;
+                terms[n] = coefficients != null ? NaturalBox.of(coefficients[k])
+                        : NaturalBox.of(bigCoefficients[k]);
+                n++;
+            }
+        }
+        return horner(A, exponents, terms, n);
+    }
+
+    @Override
+    public int getHeight() {
+        return 2;
+    }
+
+    /**
+     * Since a box is immutable it is its own copy.
+     * @return this Box
+     */
+    @Override
+    public PolyNumber clone() {
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The sum of a polynumber and a natural number or another polynumber
+     * is computed by adding their coefficients.
+     */
+    @Override
+    public Box add(Box other) {
+        return switch (other) {
+            case PolyNumber p -> plus(p.coefficients, p.bigCoefficients);
+            case NaturalBox n -> n.isBig() ? plus(null, new BigInteger[]{n.bigValue()})
+                    : plus(new long[]{n.longValue()}, null);
+            case EmptyBox e -> this;
+            case SparsePolyNumber s -> s.add(this);
+            case MultiNumber m -> m.add(this);
+            case AbstractBox a -> NonEmptyBox.sum(this, a);
+            default -> other.add(this);
+        };
+    }
+
+    private Box plus(long[] b, BigInteger[] bigB) {
+        if (coefficients != null && b != null) {
+            var longer = coefficients.length >= b.length ? coefficients : b;
+            var shorter = longer == b ? coefficients : b;
+            var sum = Arrays.copyOf(longer, longer.length);
+            boolean overflow = false;
+            for (int k = 0; k < shorter.length; k++) {
+                sum[k] += shorter[k];
+                overflow |= sum[k] < 0;
+            }
+            if (!overflow) {
+                return normalize(sum);
+            }
+        }
+        var x = bigCoefficients();
+        var y = bigB != null ? bigB : Convolution.toBig(b);
+        var longer = x.length >= y.length ? x : y;
+        var shorter = longer == y ? x : y;
+        var sum = Arrays.copyOf(longer, longer.length);
+        for (int k = 0; k < shorter.length; k++) {
+            sum[k] = sum[k].add(shorter[k]);
+        }
+        return normalize(sum);
+    }
+
+    @Override
+    public Box addEmptyBox(EmptyBox other) {
+        return this;
+    }
+
+    @Override
+    public Box addNonEmptyBox(NonEmptyBox other) {
+        return NonEmptyBox.sum(other, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The product of a polynumber and a natural number or another
+     * polynumber is the convolution of their coefficients.
+     */
+    @Override
+    public Box mul(Box other) {
+        if (other == this) {
+            return square();
+        }
+        return switch (other) {
+            case PolyNumber p -> times(p.coefficients, p.bigCoefficients);
+            case NaturalBox n -> n.isBig() ? times(null, new BigInteger[]{n.bigValue()})
+                    : times(new long[]{n.longValue()}, null);
+            case EmptyBox e -> EmptyBox.ZERO;
+            case SparsePolyNumber s -> s.mul(this);
+            case MultiNumber m -> m.mul(this);
+            case AbstractBox a -> NonEmptyBox.product(this, a);
+            default -> other.mul(this);
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * The coefficient array is convolved with itself, see Convolution.
+     */
+    @Override
+    public Box square() {
+        if (coefficients != null && Convolution.fitsLong(coefficients, coefficients)) {
+            return normalize(Convolution.multiply(coefficients, coefficients));
+        }
+        var big = bigCoefficients();
+        return normalize(Convolution.multiply(big, big));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The coefficient arrays are cut after α^maxDegree before they are
+     * convolved.
+     */
+    @Override
+    Box truncatedProduct(Box other, int maxDegree) {
+        return switch (other) {
+            case PolyNumber p -> truncatedTimes(p.coefficients, p.bigCoefficients, maxDegree);
+            case NaturalBox n -> n.isBig() ? truncatedTimes(null, new BigInteger[]{n.bigValue()}, maxDegree)
+                    : truncatedTimes(new long[]{n.longValue()}, null, maxDegree);
+            case SparsePolyNumber s -> s.mulTruncated(this, maxDegree);
+            case MultiNumber m -> m.mulTruncated(this, maxDegree);
+            default -> super.truncatedProduct(other, maxDegree);
+        };
+    }
+
+    private Box truncatedTimes(long[] b, BigInteger[] bigB, int maxDegree) {
+        int n = (int) Math.min(maxDegree + 1L, Integer.MAX_VALUE);
+        if (coefficients != null && b != null) {
+            var x = Arrays.copyOf(coefficients, Math.min(coefficients.length, n));
+            var y = Arrays.copyOf(b, Math.min(b.length, n));
+            if (Convolution.fitsLong(x, y)) {
+                var product = Convolution.multiply(x, y);
+                return normalize(Arrays.copyOf(product, Math.min(product.length, n)));
+            }
+        }
+        var big = bigCoefficients();
+        var bigY = bigB != null ? bigB : Convolution.toBig(b);
+        var x = Arrays.copyOf(big, Math.min(big.length, n));
+        var y = Arrays.copyOf(bigY, Math.min(bigY.length, n));
+        var product = Convolution.multiply(x, y);
+        return normalize(Arrays.copyOf(product, Math.min(product.length, n)));
+    }
+
+    private Box times(long[] b, BigInteger[] bigB) {
+        if (coefficients != null && b != null && Convolution.fitsLong(coefficients, b)) {
+            return normalize(Convolution.multiply(coefficients, b));
+        }
+        var y = bigB != null ? bigB : Convolution.toBig(b);
+        return normalize(Convolution.multiply(bigCoefficients(), y));
+    }
+
+    @Override
+    public Box mulEmptyBox(EmptyBox other) {
+        return EmptyBox.ZERO;
+    }
+
+    @Override
+    public Box mulNonEmptyBox(NonEmptyBox other) {
+        return NonEmptyBox.product(other, this);
+    }
+
+    /**
+     * Two polynumbers are equal if they have the same coefficients.
+     * @param o The other object
+     * @return true if o is a PolyNumber with the same coefficients
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof PolyNumber other) {
+            if (hash != other.hash) {
+                return false;
+            }
+            if (coefficients != null) {
+                return Arrays.equals(coefficients, other.coefficients);
+            }
+            return Arrays.equals(bigCoefficients, other.bigCoefficients);
+        }
+        return false;
+    }
+
+    /**
+     * The hash code is the same as that of the equivalent box of natural
+     * numbers.
+     * @return The structural hash code
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Division with remainder of integer coefficient arrays. The coefficient
+ * at index k is that of α^k, and coefficients may be negative. When the
+ * leading coefficient of the divisor is 1 or -1 the quotient and
+ * remainder have integer coefficients. Otherwise the quotient over the
+ * rationals is found when its coefficients are integers.
+ * <p>
+ * Short quotients are found by the schoolbook method. When the divisor is
+ * monic the quotient of longer ones is the reversed dividend times the
+ * power series inverse of the reversed divisor, which Newton iteration
+ * finds at the cost of a few multiplications. Over the integers the
+ * inverse has coefficients much larger than those of the quotient, so
+ * the quotient is found modulo the primes of the number-theoretic
+ * transform, one at a time, and combined by the Chinese remainder
+ * theorem. When adding a prime does not change it, it is checked by one
+ * exact multiplication: if f - q·g has degree less than that of g then q
+ * is the quotient.
+ * <p>
+ * The size of the quotient is estimated first from its leading
+ * coefficients, which take only a few steps of the schoolbook method, and
+ * the bits they gain per step. If the estimate is too large for the
+ * primes the schoolbook method is used at once; otherwise no more primes
+ * are tried than the estimate needs, and if the quotient is not found with
+ * them the schoolbook method is used.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+final class PolynomialDivision {
+
+    /** The number of leading quotient coefficients used for the estimate. */
+    private static final int PROBE = 64;
+
+    private static volatile int newtonThreshold
+            = Integer.getInteger("boxarithmetic.newton.threshold", 256);
+
+    private PolynomialDivision() {}
+
+    /**
+     * Set the length of quotient and divisor from which Newton iteration
+     * replaces the schoolbook method.
+     * @param n The threshold, at least 1
+     */
+    static void setNewtonThreshold(int n) {
+        newtonThreshold = Math.max(1, n);
+    }
+
+    static int newtonThreshold() {
+        return newtonThreshold;
+    }
+
+    /**
+     * Divide one polynumber by another.
+     * @param f The dividend, a polynumber or the difference of two
+     * @param g The divisor, a polynumber or the difference of two
+     * @return the quotient and the remainder, each a polynumber or a
+     * VirtualBox
+     * @throws IllegalArgumentException if f or g is not a polynumber
+     * @throws ArithmeticException if the divisor is 0, or its leading
+     * coefficient is not 1 or -1 and the quotient does not have integer
+     * coefficients
+     */
+    static Box[] divide(Box f, Box g) {
+        var qr = divide(AlgebraicCalculus.coefficients(f), AlgebraicCalculus.coefficients(g));
+        return new Box[]{PolyNumber.of(qr[0]), PolyNumber.of(qr[1])};
+    }
+
+    /**
+     * Divide one coefficient array by another.
+     * @param f The dividend
+     * @param g The divisor
+     * @return the quotient and the remainder, without trailing zeros
+     * @throws ArithmeticException if the divisor is 0, or its leading
+     * coefficient is not 1 or -1 and the quotient does not have integer
+     * coefficients
+     */
+    static BigInteger[][] divide(BigInteger[] f, BigInteger[] g) {
+        f = trim(f);
+        g = trim(g);
+        if (g.length == 0) {
+            throw new ArithmeticException("Division by 0");
+        }
+        var lead = g[g.length - 1];
+        if (lead.equals(BigInteger.ONE.negate())) {
+            var qr = divide(f, negate(g));
+            return new BigInteger[][]{negate(qr[0]), qr[1]};
+        }
+        int m = g.length - 1;
+        int k = f.length - m;
+        if (k <= 0) {
+            return new BigInteger[][]{new BigInteger[0], f};
+        }
+        if (!lead.equals(BigInteger.ONE) || k < newtonThreshold || m < newtonThreshold) {
+            return schoolbook(f, g);
+        }
+        int primes = primes(f, g);
+        if (primes < 0 || 2L * f.length > NumberTheoreticTransform.maxLength()) {
+            return schoolbook(f, g);
+        }
+        var qr = newton(f, g, k, primes);
+        return qr != null ? qr : schoolbook(f, g);
+    }
+
+    /**
+     * Estimate the number of primes needed for the quotient by a monic
+     * divisor. The leading coefficients of the quotient are found exactly,
+     * and the bits gained over the second half of them are taken to be
+     * gained at the same rate by the rest.
+     * @param f The dividend, no shorter than g
+     * @param g The divisor, whose leading coefficient is 1
+     * @return the number of primes, see NumberTheoreticTransform.primesFor,
+     * or -1 if there are not enough
+     */
+    static int primes(BigInteger[] f, BigInteger[] g) {
+        int m = g.length - 1;
+        int k = f.length - m;
+        int t = Math.min(k, PROBE);
+        var q = new BigInteger[t];
+        int bits = 0;
+        int half = 0;
+        for (int s = 0; s < t; s++) {
+            var c = f[f.length - 1 - s];
+            for (int j = 1; j <= Math.min(s, m); j++) {
+                c = c.subtract(g[m - j].multiply(q[s - j]));
+            }
+            q[s] = c;
+            bits = Math.max(bits, c.bitLength());
+            if (s < t / 2) {
+                half = bits;
+            }
+        }
+        double rate = (double) (bits - half) / (t - t / 2);
+        double estimate = bits + rate * (k - t);
+        return estimate < Integer.MAX_VALUE ? NumberTheoreticTransform.primesFor((int) Math.ceil(estimate)) : -1;
+    }
+
+    /**
+     * Find the quotient modulo each prime in turn, and return the quotient
+     * and remainder once one is confirmed, or null if none is with the
+     * given number of primes.
+     */
+    private static BigInteger[][] newton(BigInteger[] f, BigInteger[] g, int k, int primes) {
+        int m = g.length - 1;
+        var fk = Arrays.copyOfRange(f, m, f.length);
+        var modulus = BigInteger.ONE;
+        var residue = new BigInteger[k];
+        Arrays.fill(residue, BigInteger.ZERO);
+        BigInteger[] q = null;
+        for (int i = 0; i < primes; i++) {
+            long p = NumberTheoreticTransform.prime(i);
+            var bigP = BigInteger.valueOf(p);
+            var h = inverse(reverse(residues(g, p)), k, i);
+            var x = NumberTheoreticTransform.multiplyModulo(reverse(residues(fk, p)), h, i);
+            long scale = modulus.modInverse(bigP).longValue();
+            var next = new BigInteger[k];
+            for (int t = 0; t < k; t++) {
+                long d = Math.floorMod(x[k - 1 - t] - residue[t].mod(bigP).longValue(), p);
+                d = d * scale % p;
+                residue[t] = residue[t].add(modulus.multiply(BigInteger.valueOf(d)));
+            }
+            modulus = modulus.multiply(bigP);
+            var half = modulus.shiftRight(1);
+            for (int t = 0; t < k; t++) {
+                next[t] = residue[t].compareTo(half) > 0 ? residue[t].subtract(modulus) : residue[t];
+            }
+            if (q != null && Arrays.equals(q, next)) {
+                var r = remainder(f, next, g);
+                if (r != null) {
+                    return new BigInteger[][]{trim(next), r};
+                }
+            }
+            q = next;
+        }
+        return null;
+    }
+
+    /**
+     * The remainder f - q·g, or null if it does not have degree less than
+     * that of g.
+     */
+    private static BigInteger[] remainder(BigInteger[] f, BigInteger[] q, BigInteger[] g) {
+        int m = g.length - 1;
+        var product = Convolution.multiply(q, g);
+        for (int i = m; i < f.length; i++) {
+            if (!f[i].equals(product[i])) {
+                return null;
+            }
+        }
+        var r = new BigInteger[m];
+        for (int i = 0; i < m; i++) {
+            r[i] = f[i].subtract(product[i]);
+        }
+        return trim(r);
+    }
+
+    private static BigInteger[][] schoolbook(BigInteger[] f, BigInteger[] g) {
+        int m = g.length - 1;
+        var lead = g[m];
+        var r = f.clone();
+        var q = new BigInteger[f.length - m];
+        for (int i = f.length - 1; i >= m; i--) {
+            var qr = r[i].divideAndRemainder(lead);
+            if (qr[1].signum() != 0) {
+                throw new ArithmeticException("The quotient does not have integer coefficients");
+            }
+            var c = qr[0];
+            q[i - m] = c;
+            if (c.signum() != 0) {
+                for (int j = 0; j < m; j++) {
+                    r[i - m + j] = r[i - m + j].subtract(c.multiply(g[j]));
+                }
+            }
+        }
+        return new BigInteger[][]{trim(q), trim(Arrays.copyOf(r, m))};
+    }
+
+    /**
+     * The inverse modulo the i-th prime p of a power series whose constant
+     * term is 1, to n terms. Each step doubles the number of correct terms
+     * with y = y - y·(h·y - 1).
+     */
+    private static long[] inverse(long[] h, int n, int i) {
+        long p = NumberTheoreticTransform.prime(i);
+        var y = new long[]{1};
+        while (y.length < n) {
+            int length = Math.min(2 * y.length, n);
+            var e = NumberTheoreticTransform.multiplyModulo(Arrays.copyOf(h, length), y, i);
+            var correction = NumberTheoreticTransform.multiplyModulo(y, Arrays.copyOfRange(e, y.length, length), i);
+            var next = Arrays.copyOf(y, length);
+            for (int t = y.length; t < length; t++) {
+                next[t] = Math.floorMod(-correction[t - y.length], p);
+            }
+            y = next;
+        }
+        return y;
+    }
+
+    /** The residues modulo p. */
+    private static long[] residues(BigInteger[] a, long p) {
+        var bigP = BigInteger.valueOf(p);
+        var result = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[i].mod(bigP).longValue();
+        }
+        return result;
+    }
+
+    private static long[] reverse(long[] a) {
+        var result = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[a.length - 1 - i];
+        }
+        return result;
+    }
+
+    private static BigInteger[] negate(BigInteger[] a) {
+        var result = new BigInteger[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[i].negate();
+        }
+        return result;
+    }
+
+    /**
+     * Remove trailing zero coefficients.
+     * @param a The coefficients
+     * @return a, or a copy of it without trailing zeros
+     */
+    private static BigInteger[] trim(BigInteger[] a) {
+        int length = a.length;
+        while (length > 0 && a[length - 1].signum() == 0) {
+            length--;
+        }
+        return length == a.length ? a : Arrays.copyOf(a, length);
+    }
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * An infinite power series in α with integer coefficients, such as
+ * 1/(1 - α) or the generating function of the partitions. A coefficient
+ * is computed when it is first asked for, together with those before it,
+ * and is remembered, so asking for more terms later extends the series
+ * without computing the earlier terms again.
+ * <p>
+ * The coefficient of α^n of a sum, product, composition or inverse depends
+ * only on the coefficients of α^0 to α^n of its operands, so each is a
+ * power series whose coefficients are found from those of its operands as
+ * they are needed. A series formed from polynumbers by sums, products and
+ * composition has a known degree, and the coefficients beyond it are 0
+ * without being computed.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public final class PowerSeries {
+
+    /** The coefficient of α^n, given the coefficients before it. */
+    private final IntFunction<BigInteger> rule;
+
+    /** The coefficients of α^0 to α^(order-1) are known to be 0. */
+    private final int order;
+
+    /**
+     * The coefficients after α^degree are known to be 0, or degree is
+     * Integer.MAX_VALUE.
+     */
+    private final int degree;
+
+    /** The coefficients found so far. */
+    private BigInteger[] coefficients = new BigInteger[16];
+
+    private int size;
+
+    private PowerSeries(IntFunction<BigInteger> rule, int order, int degree) {
+        this.rule = rule;
+        this.order = order;
+        this.degree = degree;
+    }
+
+    /**
+     * Create the power series with the given coefficients.
+     * @param coefficient The coefficient of α^n for each n
+     * @return the power series
+     */
+    public static PowerSeries of(IntFunction<BigInteger> coefficient) {
+        return new PowerSeries(coefficient, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create the power series equal to a polynumber, or to the difference
+     * of two.
+     * @param box The polynumber
+     * @return the power series, with finitely many terms
+     * @throws IllegalArgumentException if box is not a polynumber
+     */
+    public static PowerSeries of(Box box) {
+        if (box instanceof VirtualBox v) {
+            return of(v.left()).sub(of(v.right()));
+        }
+        var terms = new HashMap<Integer, BigInteger>();
+        int degree = 0;
+        if (box instanceof AbstractBox a) {
+            for (int i = 0; i < a.distinctSize(); i++) {
+                var element = a.distinct(i);
+                if (!(element instanceof EmptyBox || element instanceof NaturalBox)) {
+                    throw new IllegalArgumentException(box + " is not a polynumber");
+                }
+                long k = AbstractBox.degree(element);
+                if (k <= Integer.MAX_VALUE) {
+                    terms.put((int) k, a.bigMultiplicity(i));
+                    degree = Math.max(degree, (int) k);
+                }
+            }
+        } else {
+            throw new IllegalArgumentException(box + " is not a polynumber");
+        }
+        return new PowerSeries(n -> terms.getOrDefault(n, BigInteger.ZERO), 0, degree);
+    }
+
+    /**
+     * The coefficient of α^n. The coefficients up to α^n that have not
+     * been found before are found and remembered.
+     * @param n The exponent, not negative
+     * @return the coefficient
+     */
+    public synchronized BigInteger coefficient(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Exponent " + n + " is negative");
+        }
+        if (n >= coefficients.length) {
+            coefficients = Arrays.copyOf(coefficients, Math.max(n + 1, 2 * coefficients.length));
+        }
+        while (size <= n) {
+            coefficients[size] = size > degree ? BigInteger.ZERO : rule.apply(size);
+            size++;
+        }
+        return coefficients[n];
+    }
+
+    /**
+     * The coefficients of α^0, α^1, ..., in order.
+     * @return an infinite stream of the coefficients
+     */
+    public Stream<BigInteger> coefficients() {
+        return IntStream.iterate(0, n -> n + 1).mapToObj(this::coefficient);
+    }
+
+    /**
+     * Form the polynumber equal to this series up to α^maxDegree. If it
+     * has negative coefficients the result is a VirtualBox.
+     * @param maxDegree The largest degree kept
+     * @return the series truncated
+     */
+    public Box toBox(int maxDegree) {
+        coefficient(maxDegree);
+        synchronized (this) {
+            return PolyNumber.of(Arrays.copyOf(coefficients, maxDegree + 1));
+        }
+    }
+
+    /**
+     * Form the sum of this series and another.
+     * @param other The other series
+     * @return this + other
+     */
+    public PowerSeries add(PowerSeries other) {
+        return new PowerSeries(n -> coefficient(n).add(other.coefficient(n)),
+                Math.min(order, other.order), Math.max(degree, other.degree));
+    }
+
+    /**
+     * Form the difference of this series and another.
+     * @param other The other series
+     * @return this - other
+     */
+    public PowerSeries sub(PowerSeries other) {
+        return new PowerSeries(n -> coefficient(n).subtract(other.coefficient(n)),
+                Math.min(order, other.order), Math.max(degree, other.degree));
+    }
+
+    /**
+     * Form the product of this series and another. The coefficient of
+     * α^n is the sum of the n + 1 products of a coefficient of each,
+     * less those with a coefficient known to be 0, so the product of two
+     * polynumbers of degree d takes at most d + 1 products for each
+     * coefficient.
+     * @param other The other series
+     * @return this × other
+     */
+    public PowerSeries mul(PowerSeries other) {
+        return new PowerSeries(n -> {
+            var result = BigInteger.ZERO;
+            int last = Math.min(n - other.order, degree);
+            for (int i = Math.max(order, n - other.degree); i <= last; i++) {
+                var a = coefficient(i);
+                if (a.signum() != 0) {
+                    result = result.add(a.multiply(other.coefficient(n - i)));
+                }
+            }
+            return result;
+        }, saturatedSum(order, other.order), saturatedSum(degree, other.degree));
+    }
+
+    private static int saturatedSum(int x, int y) {
+        return (int) Math.min((long) x + y, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Form the series 1/this. Each coefficient of the inverse is found
+     * from those before it, since their product is 1.
+     * @return the inverse
+     * @throws ArithmeticException if the constant term is 0, or when a
+     * coefficient is found that is not an integer
+     */
+    public PowerSeries inverse() {
+        var a0 = coefficient(0);
+        if (a0.signum() == 0) {
+            throw new ArithmeticException("The constant term is 0");
+        }
+        var inverse = new PowerSeries[1];
+        inverse[0] = of(n -> {
+            if (n == 0) {
+                return exactQuotient(BigInteger.ONE, a0);
+            }
+            var sum = BigInteger.ZERO;
+            for (int i = 1; i <= n; i++) {
+                sum = sum.add(coefficient(i).multiply(inverse[0].coefficient(n - i)));
+            }
+            return exactQuotient(sum.negate(), a0);
+        });
+        return inverse[0];
+    }
+
+    /**
+     * Form the series this(other), in which α is replaced by another
+     * series. The powers of other are themselves formed as series, so
+     * only the terms that are needed are found. The k-th power starts at
+     * α^k, which its product with other takes into account.
+     * @param other The series substituted for α, whose constant term is 0
+     * @return the composition
+     * @throws IllegalArgumentException if the constant term of other is
+     * not 0
+     */
+    public PowerSeries compose(PowerSeries other) {
+        if (other.coefficient(0).signum() != 0) {
+            throw new IllegalArgumentException("The constant term is not 0");
+        }
+        var g = new PowerSeries(other::coefficient, 1, other.degree);
+        var powers = new ArrayList<PowerSeries>();
+        powers.add(new PowerSeries(n -> n == 0 ? BigInteger.ONE : BigInteger.ZERO, 0, 0));
+        return new PowerSeries(n -> {
+            var result = BigInteger.ZERO;
+            for (int k = 0; k <= n; k++) {
+                if (k == powers.size()) {
+                    powers.add(powers.get(k - 1).mul(g));
+                }
+                var a = coefficient(k);
+                if (a.signum() != 0) {
+                    result = result.add(a.multiply(powers.get(k).coefficient(n)));
+                }
+            }
+            return result;
+        }, order, (int) Math.min((long) degree * other.degree, Integer.MAX_VALUE));
+    }
+
+    private static BigInteger exactQuotient(BigInteger x, BigInteger y) {
+        var qr = x.divideAndRemainder(y);
+        if (qr[1].signum() != 0) {
+            throw new ArithmeticException("The inverse does not have integer coefficients");
+        }
+        return qr[0];
+    }
+
+}
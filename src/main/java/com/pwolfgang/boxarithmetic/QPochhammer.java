@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A mutable product of factors 1 + α^k and 1 - α^k and their inverses,
+ * as in the q-Pochhammer symbol (α; α)_n = (1 - α)(1 - α²)...(1 - α^n).
+ * The product is kept as a power series up to a given degree. The
+ * coefficient array is updated in place, so each factor takes time
+ * proportional to the degree: multiplying by 1 ± α^k adds ± the
+ * coefficient of α^(n-k) to that of α^n, from the top down, and dividing
+ * does the same from the bottom up.
+ * <p>
+ * The coefficients are held in longs until one overflows, and then in
+ * BigIntegers. A QPochhammer is not safe for use by more than one thread.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public final class QPochhammer {
+
+    private final int maxDegree;
+
+    /** The coefficients while they fit in a long. */
+    private long[] coefficients;
+
+    /** The coefficients once one does not fit in a long. */
+    private BigInteger[] bigCoefficients;
+
+    /**
+     * Create the empty product 1.
+     * @param maxDegree The largest degree kept
+     * @throws IllegalArgumentException if maxDegree is negative or too
+     * large for a polynumber
+     */
+    public QPochhammer(int maxDegree) {
+        if (maxDegree < 0 || maxDegree > PolyNumber.MAX_DEGREE) {
+            throw new IllegalArgumentException("Degree " + maxDegree + " is out of range");
+        }
+        this.maxDegree = maxDegree;
+        coefficients = new long[maxDegree + 1];
+        coefficients[0] = 1;
+    }
+
+    /**
+     * The largest degree kept.
+     * @return the degree bound
+     */
+    public int maxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * Multiply this product by 1 + sign α^k.
+     * @param sign 1 or -1
+     * @param k The exponent, at least 1
+     * @return this QPochhammer
+     */
+    public QPochhammer mul(int sign, int k) {
+        return mul(sign, k, k);
+    }
+
+    /**
+     * Multiply this product by 1 + sign α^k for each k from first to last.
+     * @param sign 1 or -1
+     * @param first The first exponent, at least 1
+     * @param last The last exponent
+     * @return this QPochhammer
+     */
+    public QPochhammer mul(int sign, int first, int last) {
+        check(sign, first);
+        for (int k = first; k <= Math.min(last, maxDegree); k++) {
+            int n = maxDegree;
+            if (bigCoefficients == null) {
+                var c = coefficients;
+                try {
+                    for (; n >= k; n--) {
+                        c[n] = sign > 0 ? Math.addExact(c[n], c[n - k]) : Math.subtractExact(c[n], c[n - k]);
+                    }
+                    continue;
+                } catch (ArithmeticException ex) {
+                    toBig();
+                }
+            }
+            var c = bigCoefficients;
+            for (; n >= k; n--) {
+                c[n] = sign > 0 ? c[n].add(c[n - k]) : c[n].subtract(c[n - k]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Divide this product by 1 + sign α^k.
+     * @param sign 1 or -1
+     * @param k The exponent, at least 1
+     * @return this QPochhammer
+     */
+    public QPochhammer div(int sign, int k) {
+        return div(sign, k, k);
+    }
+
+    /**
+     * Divide this product by 1 + sign α^k for each k from first to last.
+     * The quotient is the power series of the product times 1 - sign α^k
+     * + α^2k - ..., which is exact up to maxDegree.
+     * @param sign 1 or -1
+     * @param first The first exponent, at least 1
+     * @param last The last exponent
+     * @return this QPochhammer
+     */
+    public QPochhammer div(int sign, int first, int last) {
+        check(sign, first);
+        for (int k = first; k <= Math.min(last, maxDegree); k++) {
+            int n = k;
+            if (bigCoefficients == null) {
+                var c = coefficients;
+                try {
+                    for (; n <= maxDegree; n++) {
+                        c[n] = sign > 0 ? Math.subtractExact(c[n], c[n - k]) : Math.addExact(c[n], c[n - k]);
+                    }
+                    continue;
+                } catch (ArithmeticException ex) {
+                    toBig();
+                }
+            }
+            var c = bigCoefficients;
+            for (; n <= maxDegree; n++) {
+                c[n] = sign > 0 ? c[n].subtract(c[n - k]) : c[n].add(c[n - k]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * The coefficient of α^n.
+     * @param n The exponent, from 0 to maxDegree
+     * @return the coefficient
+     */
+    public BigInteger coefficient(int n) {
+        return bigCoefficients != null ? bigCoefficients[n] : BigInteger.valueOf(coefficients[n]);
+    }
+
+    /**
+     * The coefficients of α^0 to α^maxDegree, in order.
+     * @return the coefficients
+     */
+    public Stream<BigInteger> coefficients() {
+        return IntStream.rangeClosed(0, maxDegree).mapToObj(this::coefficient);
+    }
+
+    /**
+     * Form the polynumber equal to this product up to maxDegree. If it has
+     * negative coefficients the result is a VirtualBox.
+     * @return the product
+     */
+    public Box toBox() {
+        if (bigCoefficients != null) {
+            return PolyNumber.of(bigCoefficients);
+        }
+        return PolyNumber.of(coefficients);
+    }
+
+    private void check(int sign, int first) {
+        if (sign != 1 && sign != -1) {
+            throw new IllegalArgumentException("Sign " + sign + " is not 1 or -1");
+        }
+        if (first < 1) {
+            throw new IllegalArgumentException("Exponent " + first + " is less than 1");
+        }
+    }
+
+    private void toBig() {
+        bigCoefficients = Convolution.toBig(coefficients);
+        coefficients = null;
+    }
+
+}
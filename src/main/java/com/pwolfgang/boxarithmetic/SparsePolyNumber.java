@@ -0,0 +1,846 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * This class models a polynumber with a few terms of large degree, such
+ * as [0 1000000] for 1 + α^1000000. The polynumber is held as the sorted
+ * array of the exponents that have a nonzero coefficient, each paired with
+ * its coefficient. A polynumber whose coefficients are dense is a
+ * PolyNumber instead; which representation is used depends only on the
+ * value.
+ * <p>
+ * The coefficients are held as longs, or as BigIntegers when their sum
+ * does not fit in a long. Sums and products are formed with longs, and
+ * are formed again with BigIntegers if a coefficient overflows.
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public final class SparsePolyNumber extends AbstractBox {
+
+    /** The exponents in increasing order. */
+    private final long[] exponents;
+
+    /**
+     * The coefficient of each exponent, each positive, or null if they are
+     * held as BigIntegers.
+     */
+    private final long[] coefficients;
+
+    /** The coefficients if the size does not fit in a long, otherwise null. */
+    private final BigInteger[] bigCoefficients;
+
+    private final long total;
+
+    private final BigInteger bigTotal;
+
+    private final int hash;
+
+    /**
+     * Construct a SparsePolyNumber. Exactly one of the coefficient arrays
+     * is not null. The arrays become owned by this box.
+     * @param exponents The exponents in increasing order
+     * @param coefficients The coefficient of each exponent as longs
+     * @param bigCoefficients The coefficient of each exponent as BigIntegers
+     */
+    private SparsePolyNumber(long[] exponents, long[] coefficients, BigInteger[] bigCoefficients) {
+        this.exponents = exponents;
+        this.coefficients = coefficients;
+        this.bigCoefficients = bigCoefficients;
+        int h = 0;
+        long t = 0;
+        var bt = BigInteger.ZERO;
+        int unit = NonEmptyBox.elementHash(EmptyBox.ZERO);
+        for (int i = 0; i < exponents.length; i++) {
+            int c;
+            if (coefficients != null) {
+                c = (int) coefficients[i];
+                t = Math.addExact(t, coefficients[i]);
+            } else {
+                c = bigCoefficients[i].intValue();
+                bt = bt.add(bigCoefficients[i]);
+            }
+            h += c * NonEmptyBox.mix((int) exponents[i] * unit);
+        }
+        hash = h;
+        total = t;
+        bigTotal = bigCoefficients != null ? bt : null;
+    }
+
+    /**
+     * Determine if a box with the given distinct elements is a polynumber
+     * whose exponents fit in a long.
+     * @param elements The distinct elements sorted by compareTo
+     * @return true if the elements are natural numbers that are not all zero
+     */
+    static boolean isPolyNumber(Box[] elements) {
+        for (var element : elements) {
+            if (!element.isEmptyBox()
+                    && !(element instanceof NaturalBox n && !n.isBig())) {
+                return false;
+            }
+        }
+        return !elements[elements.length - 1].isEmptyBox();
+    }
+
+    /**
+     * Create the canonical box with the given contents. The contents must
+     * satisfy isPolyNumber.
+     * @param elements The distinct elements sorted by compareTo
+     * @param counts The multiplicity of each element
+     * @return The canonical box
+     */
+    static Box of(Box[] elements, long[] counts) {
+        var exps = new long[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            exps[i] = elements[i].isEmptyBox() ? 0 : ((NaturalBox) elements[i]).longValue();
+        }
+        return normalize(exps, counts.clone(), exps.length);
+    }
+
+    /**
+     * Create the canonical box with the given contents, whose multiplicities
+     * may not fit in a long. The contents must satisfy isPolyNumber.
+     * @param elements The distinct elements sorted by compareTo
+     * @param counts The multiplicity of each element
+     * @return The canonical box
+     */
+    static Box of(Box[] elements, BigInteger[] counts) {
+        var exps = new long[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            exps[i] = elements[i].isEmptyBox() ? 0 : ((NaturalBox) elements[i]).longValue();
+        }
+        return normalize(exps, counts.clone(), exps.length);
+    }
+
+    /**
+     * Create the polynumber with the given terms. The exponents need not
+     * be sorted or distinct; the coefficients of equal exponents are added.
+     * @param exponents The exponents, none negative
+     * @param coefficients The coefficient of each exponent, none negative
+     * @return The canonical box
+     * @throws IllegalArgumentException if an exponent or coefficient is
+     * negative or the arrays differ in length
+     */
+    public static Box of(long[] exponents, long[] coefficients) {
+        if (exponents.length != coefficients.length) {
+            throw new IllegalArgumentException();
+        }
+        var acc = new Accumulator(exponents.length);
+        for (int i = 0; i < exponents.length; i++) {
+            if (exponents[i] < 0 || coefficients[i] < 0) {
+                throw new IllegalArgumentException();
+            }
+            acc.add(exponents[i], coefficients[i]);
+        }
+        return acc.toBox();
+    }
+
+    /**
+     * Create the polynumber containing the natural numbers in a list.
+     * @param boxs The elements, each an EmptyBox or a NaturalBox that fits
+     * in a long
+     * @return The canonical box
+     */
+    static Box ofNaturals(Box[] boxs) {
+        var exps = new long[boxs.length];
+        for (int i = 0; i < boxs.length; i++) {
+            exps[i] = boxs[i].isEmptyBox() ? 0 : ((NaturalBox) boxs[i]).longValue();
+        }
+        Arrays.sort(exps);
+        var counts = new long[exps.length];
+        int n = 0;
+        for (int i = 0; i < exps.length; i++) {
+            if (n > 0 && exps[n - 1] == exps[i]) {
+                counts[n - 1]++;
+            } else {
+                exps[n] = exps[i];
+                counts[n++] = 1;
+            }
+        }
+        return normalize(exps, counts, n);
+    }
+
+    /**
+     * Create the canonical box with the given terms.
+     * @param exps The distinct exponents in increasing order
+     * @param coefs The coefficient of each exponent, each positive
+     * @param n The number of terms to use
+     * @return The canonical box
+     */
+    static Box normalize(long[] exps, long[] coefs, int n) {
+        if (n == 0) {
+            return EmptyBox.ZERO;
+        }
+        long degree = exps[n - 1];
+        if (degree == 0) {
+            return NaturalBox.of(coefs[0]);
+        }
+        if (PolyNumber.isDense(degree, n)) {
+            var c = new long[(int) degree + 1];
+            for (int i = 0; i < n; i++) {
+                c[(int) exps[i]] = coefs[i];
+            }
+            return PolyNumber.normalize(c);
+        }
+        long t = 0;
+        for (int i = 0; i < n; i++) {
+            t += coefs[i];
+            if (t < 0) {
+                var big = new BigInteger[n];
+                for (int k = 0; k < n; k++) {
+                    big[k] = BigInteger.valueOf(coefs[k]);
+                }
+                return normalize(exps, big, n);
+            }
+        }
+        if (n < exps.length) {
+            exps = Arrays.copyOf(exps, n);
+            coefs = Arrays.copyOf(coefs, n);
+        }
+        return BoxInterner.intern(new SparsePolyNumber(exps, coefs, null));
+    }
+
+    /**
+     * Create the canonical box with the given terms, whose coefficients
+     * may not fit in a long.
+     * @param exps The distinct exponents in increasing order
+     * @param coefs The coefficient of each exponent, each positive
+     * @param n The number of terms to use
+     * @return The canonical box
+     */
+    static Box normalize(long[] exps, BigInteger[] coefs, int n) {
+        if (n == 0) {
+            return EmptyBox.ZERO;
+        }
+        long degree = exps[n - 1];
+        if (degree == 0) {
+            return NaturalBox.of(coefs[0]);
+        }
+        var t = BigInteger.ZERO;
+        for (int i = 0; i < n; i++) {
+            t = t.add(coefs[i]);
+        }
+        if (t.bitLength() < Long.SIZE) {
+            var small = new long[n];
+            for (int i = 0; i < n; i++) {
+                small[i] = coefs[i].longValue();
+            }
+            return normalize(exps, small, n);
+        }
+        if (PolyNumber.isDense(degree, n)) {
+            var c = new BigInteger[(int) degree + 1];
+            Arrays.fill(c, BigInteger.ZERO);
+            for (int i = 0; i < n; i++) {
+                c[(int) exps[i]] = coefs[i];
+            }
+            return PolyNumber.normalize(c);
+        }
+        if (n < exps.length) {
+            exps = Arrays.copyOf(exps, n);
+            coefs = Arrays.copyOf(coefs, n);
+        }
+        return BoxInterner.intern(new SparsePolyNumber(exps, null, coefs));
+    }
+
+    /**
+     * The degree of this polynumber.
+     * @return the largest exponent
+     */
+    public long degree() {
+        return exponents[exponents.length - 1];
+    }
+
+    /**
+     * The exponents that have a nonzero coefficient.
+     * @return a copy of the exponents in increasing order
+     */
+    public long[] exponents() {
+        return exponents.clone();
+    }
+
+    /**
+     * The nonzero coefficients.
+     * @return a copy of the coefficients in the order of the exponents
+     * @throws ArithmeticException if a coefficient does not fit in a long
+     */
+    public long[] coefficients() {
+        if (coefficients != null) {
+            return coefficients.clone();
+        }
+        var result = new long[bigCoefficients.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bigCoefficients[i].longValueExact();
+        }
+        return result;
+    }
+
+    /**
+     * The coefficient of α^k.
+     * @param k The exponent
+     * @return the multiplicity of k in this box
+     * @throws ArithmeticException if the coefficient does not fit in a long
+     */
+    public long coefficient(long k) {
+        int i = Arrays.binarySearch(exponents, k);
+        return i < 0 ? 0 : multiplicity(i);
+    }
+
+    @Override
+    boolean isBig() {
+        return bigCoefficients != null;
+    }
+
+    @Override
+    long total() {
+        if (bigCoefficients != null) {
+            throw new ArithmeticException("size too large for a long");
+        }
+        return total;
+    }
+
+    @Override
+    BigInteger bigTotal() {
+        return bigTotal != null ? bigTotal : BigInteger.valueOf(total);
+    }
+
+    @Override
+    int distinctSize() {
+        return exponents.length;
+    }
+
+    @Override
+    Box distinct(int i) {
+        return NaturalBox.ofCount(exponents[i]);
+    }
+
+    @Override
+    long multiplicity(int i) {
+        return coefficients != null ? coefficients[i] : bigCoefficients[i].longValueExact();
+    }
+
+    @Override
+    BigInteger bigMultiplicity(int i) {
+        return coefficients != null ? BigInteger.valueOf(coefficients[i]) : bigCoefficients[i];
+    }
+
+    /**
+     * {@inheritDoc}
+     * The truncation is found by a binary search of the exponents.
+     */
+    @Override
+    public Box tB(Box b) {
+        long k;
+        if (b.isEmptyBox()) {
+            k = 0;
+        } else if (b instanceof NaturalBox n && !n.isBig()) {
+            k = n.longValue();
+        } else {
+            return EmptyBox.ZERO;
+        }
+        int i = Arrays.binarySearch(exponents, k);
+        if (i < 0) {
+            return EmptyBox.ZERO;
+        }
+        return normalize(new long[]{k}, new BigInteger[]{bigMultiplicity(i)}, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The terms are taken in decreasing order by Horner's rule, with the
+     * power of A for each gap formed by repeated squaring.
+     */
+    @Override
+    public Box eval(Box A) {
+        if (A.isEmptyBox()) {
+            return Box.of(EmptyBox.ZERO);
+        }
+        int n = exponents.length;
+        var descending = new long[n];
+        var terms = new Box[n];
+        for (int i = 0; i < n; i++) {
+            descending[i] = exponents[n - 1 - i];
+            terms[i] = NaturalBox.of(bigMultiplicity(n - 1 - i));
+        }
+        return horner(A, descending, terms, n);
+    }
+
+    @Override
+    public boolean isEmptyBox() {
+        return false;
+    }
+
+    @Override
+    public int getHeight() {
+        return 2;
+    }
+
+    /**
+     * Since a box is immutable it is its own copy.
+     * @return this Box
+     */
+    @Override
+    public SparsePolyNumber clone() {
+        return this;
+    }
+
+    /**
+     * The terms of a polynumber as exponents and coefficients.
+     * @param box A SparsePolyNumber, PolyNumber or NaturalBox
+     * @return the exponents and coefficients, or null if box is
+     * not a polynumber with long coefficients
+     */
+    private static long[][] terms(Box box) {
+        return switch (box) {
+            case SparsePolyNumber s when !s.isBig() -> new long[][]{s.exponents, s.coefficients};
+            case PolyNumber p when !p.isBig() -> {
+                int n = p.distinctSize();
+                var exps = new long[n];
+                var coefs = new long[n];
+                for (int i = 0; i < n; i++) {
+                    exps[i] = p.exponent(i);
+                    coefs[i] = p.multiplicity(i);
+                }
+                yield new long[][]{exps, coefs};
+            }
+            case NaturalBox n when !n.isBig() -> new long[][]{{0}, {n.longValue()}};
+            default -> null;
+        };
+    }
+
+    /**
+     * The coefficients of the terms of a polynumber as BigIntegers.
+     * @param box A SparsePolyNumber, PolyNumber or NaturalBox
+     * @return the coefficients, or null if box is not a polynumber
+     */
+    private static BigInteger[] bigTerms(Box box) {
+        if (box instanceof SparsePolyNumber s && s.isBig()) {
+            return s.bigCoefficients;
+        }
+        if (!(box instanceof SparsePolyNumber || box instanceof PolyNumber || box instanceof NaturalBox)) {
+            return null;
+        }
+        var a = (AbstractBox) box;
+        var result = new BigInteger[a.distinctSize()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = a.bigMultiplicity(i);
+        }
+        return result;
+    }
+
+    /**
+     * The exponents of the terms of a polynumber, see bigTerms.
+     */
+    private static long[] exponents(Box box) {
+        return switch (box) {
+            case SparsePolyNumber s -> s.exponents;
+            case PolyNumber p -> {
+                var result = new long[p.distinctSize()];
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = p.exponent(i);
+                }
+                yield result;
+            }
+            default -> new long[]{0};
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * The sum with another polynumber is formed by merging the exponents.
+     */
+    @Override
+    public Box add(Box other) {
+        if (other.isEmptyBox()) {
+            return this;
+        }
+        var y = terms(other);
+        if (y != null && coefficients != null) {
+            try {
+                return plus(exponents, coefficients, y[0], y[1]);
+            } catch (ArithmeticException ex) {
+                // A coefficient overflows, the sum is formed with BigIntegers
+            }
+        }
+        var bigY = bigTerms(other);
+        if (bigY != null) {
+            return plus(exponents, bigTerms(this), exponents(other), bigY);
+        }
+        return switch (other) {
+            case MultiNumber m -> m.add(this);
+            case AbstractBox a -> NonEmptyBox.sum(this, a);
+            default -> other.add(this);
+        };
+    }
+
+    private static Box plus(long[] xe, BigInteger[] xc, long[] ye, BigInteger[] yc) {
+        var exps = new long[xe.length + ye.length];
+        var coefs = new BigInteger[xe.length + ye.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < xe.length && j < ye.length) {
+            if (xe[i] < ye[j]) {
+                exps[n] = xe[i];
+                coefs[n++] = xc[i++];
+            } else if (xe[i] > ye[j]) {
+                exps[n] = ye[j];
+                coefs[n++] = yc[j++];
+            } else {
+                exps[n] = xe[i];
+                coefs[n++] = xc[i++].add(yc[j++]);
+            }
+        }
+        while (i < xe.length) {
+            exps[n] = xe[i];
+            coefs[n++] = xc[i++];
+        }
+        while (j < ye.length) {
+            exps[n] = ye[j];
+            coefs[n++] = yc[j++];
+        }
+        return normalize(exps, coefs, n);
+    }
+
+    private static Box plus(long[] xe, long[] xc, long[] ye, long[] yc) {
+        var exps = new long[xe.length + ye.length];
+        var coefs = new long[xe.length + ye.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < xe.length && j < ye.length) {
+            if (xe[i] < ye[j]) {
+                exps[n] = xe[i];
+                coefs[n++] = xc[i++];
+            } else if (xe[i] > ye[j]) {
+                exps[n] = ye[j];
+                coefs[n++] = yc[j++];
+            } else {
+                exps[n] = xe[i];
+                coefs[n++] = Math.addExact(xc[i++], yc[j++]);
+            }
+        }
+        while (i < xe.length) {
+            exps[n] = xe[i];
+            coefs[n++] = xc[i++];
+        }
+        while (j < ye.length) {
+            exps[n] = ye[j];
+            coefs[n++] = yc[j++];
+        }
+        return normalize(exps, coefs, n);
+    }
+
+    @Override
+    public Box addEmptyBox(EmptyBox other) {
+        return this;
+    }
+
+    @Override
+    public Box addNonEmptyBox(NonEmptyBox other) {
+        return NonEmptyBox.sum(other, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The product with another polynumber is formed by adding the
+     * exponents of each pair of terms.
+     */
+    @Override
+    public Box mul(Box other) {
+        if (other == this) {
+            return square();
+        }
+        if (other.isEmptyBox()) {
+            return EmptyBox.ZERO;
+        }
+        var result = product(other, Long.MAX_VALUE);
+        if (result != null) {
+            return result;
+        }
+        return switch (other) {
+            case MultiNumber m -> m.mul(this);
+            case AbstractBox a -> NonEmptyBox.product(this, a);
+            default -> other.mul(this);
+        };
+    }
+
+    /**
+     * The product with another box, without the terms of degree greater
+     * than maxDegree when the other box is a polynumber.
+     */
+    private Box product(Box other, long maxDegree) {
+        var y = terms(other);
+        if (y != null && coefficients != null) {
+            try {
+                return times(exponents, coefficients, y[0], y[1], maxDegree);
+            } catch (ArithmeticException ex) {
+                // A coefficient overflows, the product is formed with BigIntegers
+            }
+        }
+        var bigY = bigTerms(other);
+        if (bigY != null) {
+            return times(exponents, bigTerms(this), exponents(other), bigY, maxDegree);
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each pair of distinct terms is multiplied once and doubled.
+     */
+    @Override
+    public Box square() {
+        if (coefficients != null) {
+            try {
+                return square(exponents, coefficients);
+            } catch (ArithmeticException ex) {
+                // A coefficient overflows, the square is formed with BigIntegers
+            }
+        }
+        return times(exponents, bigTerms(this), exponents, bigTerms(this), Long.MAX_VALUE);
+    }
+
+    private static Box square(long[] exponents, long[] coefficients) {
+        int n = exponents.length;
+        var acc = new Accumulator((long) n * (n + 1) / 2);
+        for (int i = 0; i < n; i++) {
+            acc.add(Math.multiplyExact(exponents[i], 2),
+                    Math.multiplyExact(coefficients[i], coefficients[i]));
+            long twice = Math.multiplyExact(coefficients[i], 2);
+            for (int j = i + 1; j < n; j++) {
+                acc.add(Math.addExact(exponents[i], exponents[j]),
+                        Math.multiplyExact(twice, coefficients[j]));
+            }
+        }
+        return acc.toBox();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The exponents are in increasing order, so the pairs for each term
+     * stop at the first exponent that is too large.
+     */
+    @Override
+    Box truncatedProduct(Box other, int maxDegree) {
+        var result = product(other, maxDegree);
+        if (result != null) {
+            return result;
+        }
+        return switch (other) {
+            case MultiNumber m -> m.mulTruncated(this, maxDegree);
+            default -> super.truncatedProduct(other, maxDegree);
+        };
+    }
+
+    /**
+     * The product of two polynumbers given by their terms, without the
+     * terms of degree greater than maxDegree.
+     */
+    private static Box times(long[] xe, long[] xc, long[] ye, long[] yc, long maxDegree) {
+        var acc = new Accumulator(Math.min((long) xe.length * ye.length - 1, maxDegree) + 1);
+        for (int i = 0; i < xe.length && xe[i] <= maxDegree; i++) {
+            for (int j = 0; j < ye.length; j++) {
+                long e = Math.addExact(xe[i], ye[j]);
+                if (e > maxDegree) {
+                    break;
+                }
+                acc.add(e, Math.multiplyExact(xc[i], yc[j]));
+            }
+        }
+        return acc.toBox();
+    }
+
+    private static Box times(long[] xe, BigInteger[] xc, long[] ye, BigInteger[] yc, long maxDegree) {
+        var acc = new Accumulator(Math.min((long) xe.length * ye.length - 1, maxDegree) + 1);
+        for (int i = 0; i < xe.length && xe[i] <= maxDegree; i++) {
+            for (int j = 0; j < ye.length; j++) {
+                long e = Math.addExact(xe[i], ye[j]);
+                if (e > maxDegree) {
+                    break;
+                }
+                acc.add(e, xc[i].multiply(yc[j]));
+            }
+        }
+        return acc.toBox();
+    }
+
+    @Override
+    public Box mulEmptyBox(EmptyBox other) {
+        return EmptyBox.ZERO;
+    }
+
+    @Override
+    public Box mulNonEmptyBox(NonEmptyBox other) {
+        return NonEmptyBox.product(other, this);
+    }
+
+    /**
+     * Two sparse polynumbers are equal if they have the same terms.
+     * @param o The other object
+     * @return true if o is a SparsePolyNumber with the same terms
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof SparsePolyNumber other) {
+            return hash == other.hash
+                    && Arrays.equals(exponents, other.exponents)
+                    && Arrays.equals(coefficients, other.coefficients)
+                    && Arrays.equals(bigCoefficients, other.bigCoefficients);
+        }
+        return false;
+    }
+
+    /**
+     * The hash code is the same as that of the equivalent box of natural
+     * numbers.
+     * @return The structural hash code
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * An open addressing map from exponent to coefficient, used to collect
+     * the terms of a product. The coefficients are longs until one that is
+     * a BigInteger is added.
+     */
+    private static final class Accumulator {
+
+        private long[] keys;
+        private long[] values;
+        private BigInteger[] bigValues;
+        private boolean[] used;
+        private int size;
+
+        Accumulator(long expected) {
+            int capacity = 8;
+            while (capacity < 2 * expected && capacity < 1 << 20) {
+                capacity <<= 1;
+            }
+            keys = new long[capacity];
+            values = new long[capacity];
+            used = new boolean[capacity];
+        }
+
+        void add(long key, long value) {
+            if (value == 0) {
+                return;
+            }
+            int i = slot(key);
+            values[i] = used[i] ? Math.addExact(values[i], value) : value;
+            use(i, key);
+        }
+
+        void add(long key, BigInteger value) {
+            if (value.signum() == 0) {
+                return;
+            }
+            if (bigValues == null) {
+                toBig();
+            }
+            int i = slot(key);
+            bigValues[i] = used[i] ? bigValues[i].add(value) : value;
+            use(i, key);
+        }
+
+        /** The slot that holds key, or the free slot where it goes. */
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int i = NonEmptyBox.mix(Long.hashCode(key)) & mask;
+            while (used[i] && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private void use(int i, long key) {
+            if (!used[i]) {
+                used[i] = true;
+                keys[i] = key;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+            }
+        }
+
+        private void toBig() {
+            bigValues = new BigInteger[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i]) {
+                    bigValues[i] = BigInteger.valueOf(values[i]);
+                }
+            }
+            values = null;
+        }
+
+        private void grow() {
+            var oldKeys = keys;
+            var oldValues = values;
+            var oldBigValues = bigValues;
+            var oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = oldValues != null ? new long[keys.length] : null;
+            bigValues = oldBigValues != null ? new BigInteger[keys.length] : null;
+            used = new boolean[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int j = slot(oldKeys[i]);
+                    used[j] = true;
+                    keys[j] = oldKeys[i];
+                    if (values != null) {
+                        values[j] = oldValues[i];
+                    } else {
+                        bigValues[j] = oldBigValues[i];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Create the canonical box with the collected terms.
+         * @return the canonical box
+         */
+        Box toBox() {
+            var exps = new long[size];
+            int n = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i]) {
+                    exps[n++] = keys[i];
+                }
+            }
+            Arrays.sort(exps);
+            var coefs = values != null ? new long[size] : null;
+            var bigCoefs = values != null ? null : new BigInteger[size];
+            for (int k = 0; k < size; k++) {
+                int i = slot(exps[k]);
+                if (coefs != null) {
+                    coefs[k] = values[i];
+                } else {
+                    bigCoefs[k] = bigValues[i];
+                }
+            }
+            return coefs != null ? normalize(exps, coefs, size) : normalize(exps, bigCoefs, size);
+        }
+    }
+
+}
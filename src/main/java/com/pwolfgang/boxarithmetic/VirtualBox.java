@@ -30,28 +30,109 @@ public class VirtualBox  implements Box{
     private final Box leftBox;
     private final Box rightBox;
     
+    /** The left and right boxes with their common elements removed. */
+    private volatile Box[] reduced;
+    
     public VirtualBox(Box left, Box right) {
         leftBox = left;
         rightBox = right;
     }
     
+    /**
+     * The box from which the other is subtracted.
+     * @return the left box
+     */
+    Box left() {
+        return leftBox;
+    }
+
+    /**
+     * The box that is subtracted.
+     * @return the right box
+     */
+    Box right() {
+        return rightBox;
+    }
+
     @Override
     public String toString() {
         return "(" + leftBox.toIntegerString() + "\u2296" + rightBox.toIntegerString() + ")";
     }
     
+    /**
+     * Two VirtualBoxes (a, b) and (c, d) are equal if a + d = b + c.
+     * This is the case exactly when their reduced forms are the same.
+     * @param o The other object
+     * @return true if o is an equal VirtualBox
+     */
     @Override
     public boolean equals(Object o) {
         if (o == null) return false;
+        if (this == o) return true;
         if (o instanceof VirtualBox other) {
-            Box term1 = leftBox.add(other.rightBox);
-            Box term2 = rightBox.add(other.leftBox);
-            return term1.equals(term2);
+            if (hashCode() != other.hashCode()) {
+                return false;
+            }
+            var x = reduced();
+            var y = other.reduced();
+            return x[0].equals(y[0]) && x[1].equals(y[1]);
         } else {
             return false;
         }
     }
     
+    /**
+     * The hash code of a box is additive, the hash code of a sum is the sum
+     * of the hash codes. Thus if left + other.right equals right + other.left
+     * then left - right and other.left - other.right have the same hash code.
+     * @return the hash code of the left box minus that of the right box.
+     */
+    @Override
+    public int hashCode() {
+        return leftBox.hashCode() - rightBox.hashCode();
+    }
+    
+    /**
+     * Compare this VirtualBox with another. VirtualBoxes are ordered by
+     * their reduced left boxes and then by their reduced right boxes, so
+     * equal VirtualBoxes compare as 0.
+     * @param other The other VirtualBox
+     * @return the result of the comparison
+     */
+    int compareVirtual(VirtualBox other) {
+        var x = reduced();
+        var y = other.reduced();
+        int result = BoxOrder.compare(x[0], y[0]);
+        if (result != 0) {
+            return result;
+        }
+        return BoxOrder.compare(x[1], y[1]);
+    }
+    
+    /**
+     * The reduced form of this VirtualBox. The elements common to the
+     * left and right boxes are removed, which leaves the value unchanged.
+     * @return the reduced left and right boxes.
+     */
+    private Box[] reduced() {
+        var result = reduced;
+        if (result == null) {
+            result = reduce(leftBox, rightBox);
+            reduced = result;
+        }
+        return result;
+    }
+    
+    private static Box[] reduce(Box left, Box right) {
+        if (left instanceof VirtualBox lv) {
+            return reduce(lv.leftBox, lv.rightBox.add(right));
+        }
+        if (right instanceof VirtualBox rv) {
+            return reduce(left.add(rv.rightBox), rv.leftBox);
+        }
+        return NonEmptyBox.cancel(left, right);
+    }
+    
     public VirtualBox add(VirtualBox other) {
         return new VirtualBox(leftBox.add(other.leftBox), rightBox.add(other.rightBox));   
     }
@@ -65,11 +146,26 @@ public class VirtualBox  implements Box{
     }
     
     public VirtualBox mul(VirtualBox other) {
-        var term1 = leftBox.mul(other.leftBox).add(rightBox.mul(other.rightBox));
-        var term2 = leftBox.mul(other.rightBox).add(rightBox.mul(other.leftBox));
+        if (other == this) {
+            return square();
+        }
+        var term1 = new BoxBuilder().mulAccumulate(leftBox, other.leftBox)
+                .mulAccumulate(rightBox, other.rightBox).build();
+        var term2 = new BoxBuilder().mulAccumulate(leftBox, other.rightBox)
+                .mulAccumulate(rightBox, other.leftBox).build();
         return new VirtualBox(term1, term2);
     }
 
+    /**
+     * {@inheritDoc}
+     * (a, b)² is (a² + b², 2ab), which takes three products in place of four.
+     */
+    @Override
+    public VirtualBox square() {
+        var cross = leftBox.mul(rightBox);
+        return new VirtualBox(leftBox.square().add(rightBox.square()), cross.add(cross));
+    }
+
     @Override
     public int intSize() {
         return 2;
@@ -98,7 +194,7 @@ public class VirtualBox  implements Box{
 
     @Override
     public Box clone() {
-        return new VirtualBox(leftBox.clone(), rightBox.clone());
+        return this;
     }
 
     @Override
@@ -110,7 +206,7 @@ public class VirtualBox  implements Box{
     public Box add(Box other) {
         return switch(other) {
             case VirtualBox vb -> add(vb);
-            default -> add(new VirtualBox(other, new EmptyBox()));
+            default -> add(new VirtualBox(other, EmptyBox.ZERO));
         };
     }
 
@@ -121,25 +217,45 @@ public class VirtualBox  implements Box{
 
     @Override
     public Box addNonEmptyBox(NonEmptyBox other) {
-        return add(new VirtualBox(other, new EmptyBox()));
+        return add(new VirtualBox(other, EmptyBox.ZERO));
     }
 
     @Override
     public Box mul(Box other) {
         return switch(other) {
             case VirtualBox vb -> mul(vb);
-            default -> mul(new VirtualBox(other, new EmptyBox()));
+            default -> mul(new VirtualBox(other, EmptyBox.ZERO));
         };
     }
 
+    /**
+     * {@inheritDoc}
+     * Each of the four products of (a, b)(c, d) is truncated.
+     */
+    @Override
+    public Box mulTruncated(Box other, int maxDegree) {
+        if (maxDegree < 0) {
+            throw new IllegalArgumentException("Degree " + maxDegree + " is negative");
+        }
+        if (other instanceof VirtualBox vb) {
+            var term1 = leftBox.mulTruncated(vb.leftBox, maxDegree)
+                    .add(rightBox.mulTruncated(vb.rightBox, maxDegree));
+            var term2 = leftBox.mulTruncated(vb.rightBox, maxDegree)
+                    .add(rightBox.mulTruncated(vb.leftBox, maxDegree));
+            return new VirtualBox(term1, term2);
+        }
+        return new VirtualBox(leftBox.mulTruncated(other, maxDegree),
+                rightBox.mulTruncated(other, maxDegree));
+    }
+
     @Override
     public Box mulEmptyBox(EmptyBox other) {
-        return new EmptyBox();
+        return EmptyBox.ZERO;
     }
 
     @Override
     public Box mulNonEmptyBox(NonEmptyBox other) {
-        return mul(new VirtualBox(other, new EmptyBox()));
+        return mul(new VirtualBox(other, EmptyBox.ZERO));
     }
 
     @Override
@@ -18,6 +18,7 @@
 package mainPgms;
 
 import com.pwolfgang.boxarithmetic.Box;
+import com.pwolfgang.boxarithmetic.QPochhammer;
 
 /**
  *
@@ -35,14 +36,17 @@ public class QSeries {
     }
         
     public static void main(String... args) {
-        var p1 = Box.parse("[0 1\u1D43]");
-        var p2 = Box.parse("[0 2\u1D43]");
-        var p3 = Box.parse("[0 3\u1D43]");
-        var prod = Box.mul(p1,p2,p3);
-        printIt("p1: ", p1);
-        printIt("p2: ", p2);
-        printIt("p3: ", p3);
-        printIt("prod: ", prod);
+        int n = 3;
+        // (1 + α)(1 + α²)...(1 + αⁿ) has degree 1 + 2 + ... + n, so the
+        // product is exact when kept up to that degree.
+        int maxDegree = n * (n + 1) / 2;
+        var prod = new QPochhammer(maxDegree);
+        for (int k = 1; k <= n; k++) {
+            var pk = Box.parse("[0 " + k + "\u1D43]");  // 1 + α^k
+            printIt("p" + k + ": ", pk);
+            prod.mul(1, k);
+        }
+        printIt("prod: ", prod.toBox());
     }    
         
         
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public class AlgebraicCalculusTest {
+
+    @Test
+    public void testSubderivative() {
+        System.out.println("\n\ntestSubderivative");
+        var p = PolyNumber.of(3, 0, 5, 1);
+        assertEquals(PolyNumber.of(0, 10, 3), p.derivative());
+        assertEquals(PolyNumber.of(5, 3), p.subderivative(2));
+        assertEquals(Box.of(1), p.subderivative(3));
+        assertEquals(Box.of(0), p.subderivative(4));
+        assertEquals(p, p.subderivative(0));
+        assertEquals(Box.of(0), Box.of(7).derivative());
+        assertEquals(PolyNumber.of(-7, 0, 3), PolyNumber.of(2, -7, 0, 1).derivative());
+        var sparse = Box.parse("[0 1000 5000 5000]");
+        assertEquals(SparsePolyNumber.of(new long[]{999, 4999}, new long[]{1000, 10000}), sparse.derivative());
+        assertEquals(SparsePolyNumber.of(new long[]{998, 4998}, new long[]{499500, 2 * 12497500}), sparse.subderivative(2));
+        var v = new VirtualBox(sparse, Box.parse("[1]"));
+        assertEquals(new VirtualBox(sparse.derivative(), Box.of(1)), v.derivative());
+        assertThrows(IllegalArgumentException.class, () -> p.subderivative(-1));
+        assertThrows(IllegalArgumentException.class, () -> Box.parse("[[0 0 2] [0 100]]").derivative());
+    }
+
+    @Test
+    public void testShift() {
+        System.out.println("\n\ntestShift");
+        var p = PolyNumber.of(3, 0, 5, 1);
+        for (long c : new long[]{0, 1, 2, 5}) {
+            assertEquals(p.eval(PolyNumber.of(c, 1)), p.shift(c));
+        }
+        assertEquals(p.eval(PolyNumber.of(-2, 1)), p.shift(-2));
+        assertEquals(p, p.shift(-7).shift(7));
+        var sparse = Box.parse("[0 100 300]");
+        assertEquals(sparse.eval(PolyNumber.of(1, 1)), sparse.shift(1));
+        var random = new Random(24);
+        var a = new long[200];
+        Arrays.setAll(a, i -> random.nextInt(2001) - 1000);
+        var q = PolyNumber.of(a);
+        var c = BigInteger.valueOf(3);
+        var shifted = q.shift(c);
+        assertEquals(q, shifted.shift(c.negate()));
+        var x = BigInteger.valueOf(-11);
+        assertEquals(q.evalBigInteger(x.add(c)), shifted.evalBigInteger(x));
+        var coefficients = Interpolation.coefficients(shifted);
+        for (int k = 0; k < coefficients.length; k += 20) {
+            assertEquals(q.subderivative(k).evalBigInteger(c), coefficients[k]);
+        }
+        var big = PolyNumber.of(Long.MAX_VALUE, 0, 1).mul(Box.of(4));
+        assertEquals(big.eval(PolyNumber.of(1, 1)), big.shift(1));
+        assertThrows(IllegalArgumentException.class, () -> Box.parse("[[0 0 2]]").shift(1));
+    }
+
+}
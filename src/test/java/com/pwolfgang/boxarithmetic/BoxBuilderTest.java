@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public class BoxBuilderTest {
+
+    private static Box[] terms(int n) {
+        var random = new Random(29);
+        var terms = new Box[n];
+        for (int i = 0; i < n; i++) {
+            terms[i] = Box.of(Box.of(PolyNumber.of(random.nextInt(5), random.nextInt(3))),
+                    PolyNumber.of(1, random.nextInt(4), 1));
+        }
+        return terms;
+    }
+
+    @Test
+    public void testAdd() {
+        System.out.println("\n\ntestAdd");
+        var terms = terms(200);
+        Box sum = Box.of(0);
+        for (var term : terms) {
+            sum = sum.add(term);
+        }
+        var builder = new BoxBuilder();
+        for (var term : terms) {
+            builder.add(term);
+        }
+        assertEquals(sum, builder.build());
+        assertEquals(sum, new BoxBuilder().addAll(Arrays.asList(terms)).build());
+        assertEquals(sum.add(sum).add(sum), new BoxBuilder().addAll(Arrays.asList(terms)).add(sum, 2).build());
+        assertEquals(Box.of(0), new BoxBuilder().build());
+        assertEquals(PolyNumber.of(3, 0, 7), new BoxBuilder().add(Box.of(3)).add(Box.parse("[2]"), 7).build());
+    }
+
+    @Test
+    public void testVirtual() {
+        System.out.println("\n\ntestVirtual");
+        var x = Box.parse("[[0] [1] 2]");
+        var y = Box.parse("[[1] 2 2]");
+        var difference = new BoxBuilder().add(x).add(y, -1).build();
+        assertEquals(x.add(new VirtualBox(Box.of(0), y)), difference);
+        assertEquals(new VirtualBox(Box.parse("[[0]]"), Box.parse("[2]")), difference);
+        assertEquals(new VirtualBox(Box.of(0), Box.of(0)), new BoxBuilder().add(x).add(x, -1).build());
+    }
+
+    @Test
+    public void testMulAccumulate() {
+        System.out.println("\n\ntestMulAccumulate");
+        var terms = terms(20);
+        var x = Box.add(Arrays.copyOf(terms, 10));
+        var y = Box.add(Arrays.copyOfRange(terms, 10, 20));
+        var p = PolyNumber.of(1, 2, 3);
+        var v = new VirtualBox(x, p);
+        var builder = new BoxBuilder().mulAccumulate(x, y).mulAccumulate(p, p).mulAccumulate(x, p);
+        assertEquals(x.mul(y).add(p.mul(p)).add(x.mul(p)), builder.build());
+        assertEquals(v.mul(y), new BoxBuilder().mulAccumulate(v, y).build());
+        assertEquals(v.mul(v), new BoxBuilder().mulAccumulate(v, v).build());
+    }
+
+    @Test
+    public void testBigCounts() {
+        System.out.println("\n\ntestBigCounts");
+        var big = BigInteger.ONE.shiftLeft(70);
+        var p = PolyNumber.of(1, 1);
+        var builder = new BoxBuilder().add(p, Long.MAX_VALUE).add(p, Long.MAX_VALUE).add(p, big);
+        var expected = p.mul(NaturalBox.of(big.add(BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(1))));
+        assertEquals(expected, builder.build());
+        assertEquals(NaturalBox.of(big), new BoxBuilder().add(NaturalBox.of(big)).build());
+    }
+
+}
@@ -20,6 +20,12 @@ package com.pwolfgang.boxarithmetic;
 import java.io.FileDescriptor;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -56,6 +62,11 @@ public class BoxTest {
         assertEquals("[ ]", m.toString());
         assertEquals("0", m.toIntegerString());
         assertEquals("0", m.asPolyNumber());
+        assertSame(EmptyBox.ZERO, m);
+        assertSame(m, Box.of(0));
+        assertSame(m, Box.parse("[ ]"));
+        assertSame(m, Box.of(3).mul(m));
+        assertSame(m, m.add(m).clone());
     }
     
     @Test
@@ -245,4 +256,186 @@ public class BoxTest {
         assertEquals(tDofA, A.tB(D));
     }
         
+    @Test
+    public void testSharedInstances() {
+        System.out.println("\n\ntestSharedInstances");
+        var p = Box.parse("[0 1 1 3]");
+        var q = Box.of(Box.of(1), Box.of(3), Box.of(0), Box.of(1));
+        assertSame(p, q);
+        var r = Box.mul(Box.parse("[0 1]"), Box.parse("[0 1]"));
+        assertSame(Box.parse("[0 1 1 2]"), r);
+        assertSame(p.clone(), p);
+    }
+        
+    @Test
+    public void testLargeCoefficients() {
+        System.out.println("\n\ntestLargeCoefficients");
+        var million = Box.of(1_000_000);
+        assertEquals(1_000_000, million.intSize());
+        var billion = million.mul(Box.of(1_000));
+        assertEquals(Box.of(1_000_000_000), billion);
+        assertEquals("1000000000", billion.toIntegerString());
+        var p = Box.of(Box.of(0), Box.of(0), Box.of(2)).mul(Box.of(50_000));
+        assertEquals("100000+50000\u03B1\u2080\u00B2", p.asPolyNumber());
+        assertEquals(Box.of(100_000), p.tB(Box.of(0)));
+    }
+        
+    @Test
+    public void testBigMultiplicities() {
+        System.out.println("\n\ntestBigMultiplicities");
+        var big = BigInteger.ONE.shiftLeft(70);
+        var g = Box.parse("[[[0 1]] [[2]]]");
+        var p = NaturalBox.of(big).mul(g);
+        assertTrue(p instanceof NonEmptyBox);
+        assertEquals(big.shiftLeft(1), ((AbstractBox) p).bigTotal());
+        assertEquals(p, g.mul(NaturalBox.of(big)));
+        assertEquals(NaturalBox.of(big.shiftLeft(1)).mul(g), p.add(p));
+        assertEquals(NaturalBox.of(big).mul(Box.parse("[[[0 1]]]")), p.tB(Box.parse("[[0 1]]")));
+        var x = Box.parse("[[0 0 2] [0 100] 0]");
+        var q = x.pow(70);
+        assertEquals(BigInteger.valueOf(3).pow(70), ((AbstractBox) q).bigTotal());
+        assertEquals(q, x.pow(36).mul(x.pow(34)));
+        var r = Box.parse("[[[0]] [[0]]]").pow(64);
+        assertEquals(NaturalBox.of(BigInteger.ONE.shiftLeft(64)).mul(Box.parse("[[[0]]]").pow(64)), r);
+        var builder = new BoxBuilder();
+        builder.add(Box.parse("[[0 1]]"), Long.MAX_VALUE);
+        builder.add(Box.parse("[[0 1]]"), Long.MAX_VALUE);
+        var twice = BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(1);
+        assertEquals(NaturalBox.of(twice).mul(Box.parse("[[0 1]]")), builder.build());
+        int threshold = ForkJoinProduct.threshold();
+        int parallelism = ForkJoinProduct.parallelism();
+        try {
+            ForkJoinProduct.setParallelism(4);
+            ForkJoinProduct.setThreshold(1);
+            assertEquals(q, x.pow(36).mul(x.pow(34)));
+            assertEquals(q, x.pow(35).square());
+        } finally {
+            ForkJoinProduct.setThreshold(threshold);
+            ForkJoinProduct.setParallelism(parallelism);
+        }
+    }
+        
+    @Test
+    public void testOrder() {
+        System.out.println("\n\ntestOrder");
+        var p = Box.parse("[[4] [1 1] 3 [3] 0 [0 2]]");
+        assertEquals("[0 [3] [4] [0 2] [1 1] 3]", p.toIntegerString());
+        assertTrue(Box.parse("[3]").compareTo(Box.parse("[4]")) < 0);
+        assertTrue(Box.parse("[1 1]").compareTo(Box.parse("[0 2]")) > 0);
+        assertEquals(0, Box.parse("[1 [2 3]]").compareTo(Box.parse("[[3 2] 1]")));
+    }
+        
+    @Test
+    public void testParallelProduct() {
+        System.out.println("\n\ntestParallelProduct");
+        var random = new Random(23);
+        var boxes = new Box[2];
+        for (int b = 0; b < boxes.length; b++) {
+            var elements = new Box[60];
+            for (int i = 0; i < elements.length; i++) {
+                var polys = new Box[1 + random.nextInt(3)];
+                for (int j = 0; j < polys.length; j++) {
+                    polys[j] = PolyNumber.of(random.nextInt(3), random.nextInt(3), random.nextInt(2));
+                }
+                elements[i] = Box.of(polys);
+            }
+            boxes[b] = Box.of(elements);
+        }
+        var x = boxes[0];
+        var y = boxes[1];
+        assertTrue(x instanceof NonEmptyBox);
+        int threshold = ForkJoinProduct.threshold();
+        int parallelism = ForkJoinProduct.parallelism();
+        try {
+            ForkJoinProduct.setParallelism(1);
+            var product = x.mul(y);
+            var square = x.mul(x);
+            ForkJoinProduct.setParallelism(4);
+            ForkJoinProduct.setThreshold(1);
+            assertEquals(product, x.mul(y));
+            assertEquals(product, y.mul(x));
+            assertEquals(square, x.mul(x));
+        } finally {
+            ForkJoinProduct.setThreshold(threshold);
+            ForkJoinProduct.setParallelism(parallelism);
+        }
+    }
+        
+    @Test
+    public void testConcurrentIntern() throws Exception {
+        System.out.println("\n\ntestConcurrentIntern");
+        var random = new Random(23);
+        var boxes = new Box[2];
+        for (int b = 0; b < boxes.length; b++) {
+            var elements = new Box[60];
+            for (int i = 0; i < elements.length; i++) {
+                var polys = new Box[1 + random.nextInt(3)];
+                for (int j = 0; j < polys.length; j++) {
+                    polys[j] = PolyNumber.of(random.nextInt(3), random.nextInt(3), random.nextInt(2));
+                }
+                elements[i] = Box.of(polys);
+            }
+            boxes[b] = Box.of(elements);
+        }
+        var x = boxes[0];
+        var y = boxes[1];
+        assertTrue(x instanceof NonEmptyBox);
+        var product = x.mul(y);
+        var square = x.mul(x);
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var results = new ArrayList<Future<Box[]>>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> new Box[]{x.mul(y), y.mul(x), x.mul(x)}));
+            }
+            for (var result : results) {
+                var products = result.get();
+                assertSame(product, products[0]);
+                assertSame(product, products[1]);
+                assertSame(square, products[2]);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+        
+    @Test
+    public void testBalancedReduction() {
+        System.out.println("\n\ntestBalancedReduction");
+        var factors = new Box[40];
+        for (int k = 1; k <= factors.length; k++) {
+            var c = new long[k + 1];
+            c[0] = 1;
+            c[k] = 1;
+            factors[k - 1] = PolyNumber.of(c);
+        }
+        Box product = Box.of(1);
+        Box sum = Box.of(0);
+        for (var factor : factors) {
+            product = product.mul(factor);
+            sum = sum.add(factor);
+        }
+        assertEquals(product, Box.mul(factors));
+        assertEquals(product, Box.mul(Arrays.asList(factors)));
+        assertEquals(product, Box.mul(Arrays.stream(factors)));
+        assertEquals(sum, Box.add(factors));
+        assertEquals(sum, Box.add(Arrays.asList(factors)));
+        assertEquals(sum, Box.add(Arrays.stream(factors)));
+        var terms = new Box[]{Box.parse("[[0] [1]]"), new VirtualBox(Box.of(0), Box.parse("[[1]]")),
+            Box.of(3), Box.parse("[0 2]")};
+        assertEquals(terms[0].add(terms[1]).add(terms[2]).add(terms[3]), Box.add(terms));
+        assertEquals(Box.of(0), Box.add(new Box[0]));
+        int threshold = BalancedReduction.threshold();
+        int parallelism = ForkJoinProduct.parallelism();
+        try {
+            ForkJoinProduct.setParallelism(4);
+            BalancedReduction.setThreshold(1);
+            assertEquals(product, Box.mul(factors));
+            assertEquals(sum, Box.add(factors));
+        } finally {
+            BalancedReduction.setThreshold(threshold);
+            ForkJoinProduct.setParallelism(parallelism);
+        }
+    }
+        
 }
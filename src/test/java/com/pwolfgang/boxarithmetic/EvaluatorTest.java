@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public class EvaluatorTest {
+
+    @Test
+    public void testPolyNumber() {
+        System.out.println("\n\ntestPolyNumber");
+        var p = Box.parse("[0 0 1 4 4 4]");
+        assertEquals(3_000_000_001_002L, p.evalLong(1000));
+        assertEquals(BigInteger.valueOf(3_000_000_001_002L), p.evalBigInteger(BigInteger.valueOf(1000)));
+        assertEquals(3.000000001002e12, p.evalDouble(1000), 1);
+        assertEquals(3_000_000_001_002L % 1_000_000_007L, p.evalMod(1_000_000_007L, 1000));
+        assertEquals(3_000_000_001_002L % 999_999_999_989L, p.evalMod(999_999_999_989L, 1000));
+        assertEquals(7, Box.of(7).evalLong());
+        assertEquals(0, Box.of(0).evalLong());
+        assertEquals(-5, Box.of(-5).evalLong());
+        assertEquals(-4, new VirtualBox(Box.parse("[0 1]"), Box.parse("[1 1]")).evalLong(5));
+        var sparse = Box.parse("[0 1000]");
+        assertEquals(BigInteger.ONE.add(BigInteger.TWO.pow(1000)), sparse.evalBigInteger(BigInteger.TWO));
+        assertEquals(BigInteger.ONE.add(BigInteger.TWO.pow(1000)).mod(BigInteger.valueOf(97)).longValue(),
+                sparse.evalMod(97, 2));
+        var big = PolyNumber.of(Long.MAX_VALUE, 0, Long.MAX_VALUE).mul(Box.of(3));
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(3 * 5)),
+                big.evalBigInteger(BigInteger.TWO));
+        assertThrows(ArithmeticException.class, () -> big.evalLong(2));
+        assertThrows(IllegalArgumentException.class, () -> p.evalLong());
+    }
+
+    @Test
+    public void testProducts() {
+        System.out.println("\n\ntestProducts");
+        var p = PolyNumber.of(3, 1, 4, 1, 5);
+        var q = Box.parse("[0 2 2 7 9]");
+        var v = new VirtualBox(Box.parse("[1 1 1]"), Box.of(2));
+        for (long x : new long[]{0, 1, 2, -3}) {
+            assertEquals(p.evalLong(x) * q.evalLong(x), p.mul(q).evalLong(x));
+            assertEquals(p.evalLong(x) + q.evalLong(x), p.add(q).evalLong(x));
+            assertEquals(v.evalLong(x) * p.evalLong(x), v.mul(p).evalLong(x));
+            assertEquals(Math.floorMod(p.evalLong(x) * q.evalLong(x), 101),
+                    p.mul(q).evalMod(101, x));
+        }
+    }
+
+    @Test
+    public void testMultiNumber() {
+        System.out.println("\n\ntestMultiNumber");
+        var alpha = new long[]{2, 3, 5, 7, 11, 13, 17, 19, 23};
+        var m = Box.parse("[[3 8] [0 0 2] [0 0 2] 0]");
+        assertTrue(m instanceof MultiNumber);
+        assertEquals(7 * 23 + 2 * 4 * 5 + 1, m.evalLong(alpha));
+        assertEquals(BigInteger.valueOf(7 * 23 + 2 * 4 * 5 + 1),
+                m.evalBigInteger(Arrays.stream(alpha).mapToObj(BigInteger::valueOf).toArray(BigInteger[]::new)));
+        assertEquals(m.mul(m).evalLong(alpha), m.evalLong(alpha) * m.evalLong(alpha));
+        var general = Box.parse("[[0 0 2] [0 100]]");
+        assertTrue(general instanceof NonEmptyBox);
+        var values = new long[101];
+        Arrays.fill(values, 1);
+        values[0] = 3;
+        values[2] = 5;
+        values[100] = 7;
+        assertEquals(9 * 5 + 3 * 7, general.evalLong(values));
+        assertEquals(9 * 5 + 3 * 7, general.evalDouble(Arrays.stream(values).asDoubleStream().toArray()), 0);
+        assertThrows(IllegalArgumentException.class, () -> m.evalLong(2, 3));
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public class InterpolationTest {
+
+    private static BigInteger[] random(Random random, int n, int bits) {
+        var result = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = new BigInteger(bits, random).subtract(BigInteger.ONE.shiftLeft(bits - 1));
+        }
+        return result;
+    }
+
+    @Test
+    public void testEvalAll() {
+        System.out.println("\n\ntestEvalAll");
+        var random = new Random(18);
+        var coefficients = new long[150];
+        for (int i = 0; i < coefficients.length; i++) {
+            coefficients[i] = random.nextInt(1000);
+        }
+        var p = PolyNumber.of(coefficients);
+        var v = new VirtualBox(p, Box.parse("[0 3 3 50]"));
+        var sparse = Box.parse("[0 1 7 100]");
+        var points = new long[100];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = random.nextInt(2001) - 1000;
+        }
+        for (var box : new Box[]{p, v, sparse, Box.of(12), Box.of(0)}) {
+            var values = box.evalAll(points);
+            for (int i = 0; i < points.length; i++) {
+                assertEquals(box.evalBigInteger(BigInteger.valueOf(points[i])), values[i]);
+            }
+        }
+        assertEquals(0, p.evalAll(new long[0]).length);
+    }
+
+    @Test
+    public void testInterpolate() {
+        System.out.println("\n\ntestInterpolate");
+        var random = new Random(19);
+        for (int n : new int[]{1, 3, 40, 120}) {
+            var points = new BigInteger[n];
+            for (int i = 0; i < n; i++) {
+                points[i] = BigInteger.valueOf(3 * i - n);
+            }
+            var coefficients = random(random, n, 70);
+            var p = PolyNumber.of(coefficients);
+            var values = p.evalAll(points);
+            assertEquals(p, PolyNumber.interpolate(points, values));
+        }
+        assertEquals(Box.of(0), PolyNumber.interpolate(new BigInteger[0], new BigInteger[0]));
+        var points = new BigInteger[]{BigInteger.ZERO, BigInteger.ONE, BigInteger.TWO};
+        assertEquals(Box.parse("[0 1 1 2]"), PolyNumber.interpolate(points,
+                new BigInteger[]{BigInteger.ONE, BigInteger.valueOf(4), BigInteger.valueOf(9)}));
+        assertThrows(ArithmeticException.class, () -> PolyNumber.interpolate(points,
+                new BigInteger[]{BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE}));
+        assertThrows(IllegalArgumentException.class, () -> PolyNumber.interpolate(
+                new BigInteger[]{BigInteger.ONE, BigInteger.ONE}, new BigInteger[]{BigInteger.ONE, BigInteger.ONE}));
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public class MultiNumberTest {
+    
+    @Test
+    public void testRepresentation() {
+        System.out.println("\n\ntestRepresentation");
+        var m = Box.parse("[[3 8] [0 0 2]]");
+        assertTrue(m instanceof MultiNumber);
+        assertSame(m, Box.parse("[[0 0 2] [8 3]]"));
+        assertEquals("α₃α₈+α₀²α₂", m.asPolyNumber());
+        assertEquals("[[3 8] [0 0 2]]", m.toIntegerString());
+        assertEquals(3, m.getHeight());
+        assertEquals(2, m.intSize());
+        assertEquals(Box.parse("[[0 0 2]]"), m.tB(Box.parse("[0 0 2]")));
+        assertTrue(Box.parse("[[0 0 2] [0 100]]") instanceof NonEmptyBox);
+        assertTrue(Box.parse("[0 0 [0 0] [0 0 0]]") instanceof PolyNumber);
+    }
+    
+    @Test
+    public void testArithmetic() {
+        System.out.println("\n\ntestArithmetic");
+        var t = Box.parse("[[0] [1]]");
+        assertEquals(Box.parse("[2 [0 1] [0 1] [1 1]]"), t.mul(t));
+        assertEquals("α₀²+2α₀α₁+α₁²", t.mul(t).asPolyNumber());
+        assertEquals(Box.parse("[0 0 [0] [1]]"), t.add(Box.of(2)));
+        assertEquals(Box.parse("[0 0 [0] [1]]"), Box.of(2).add(t));
+        assertEquals(Box.parse("[2 [0 1]]"), t.mul(Box.parse("[1]")));
+        assertEquals(Box.parse("[[0] [0] [1] [1]]"), t.mul(Box.of(2)));
+        assertEquals(Box.parse("[[0] [1] [0 100]]"), t.add(Box.parse("[[0 100]]")));
+        assertEquals(Box.parse("[[0] [0] [1] [1]]"), t.add(t));
+        var difference = t.mul(t).add(new VirtualBox(Box.of(0), Box.parse("[[0 1] [0 1]]")));
+        assertEquals(new VirtualBox(Box.parse("[2 [1 1]]"), Box.of(0)), difference);
+    }
+    
+    @Test
+    public void testOverflow() {
+        System.out.println("\n\ntestOverflow");
+        var x = Box.of(PolyNumber.of(0, 16384));
+        assertTrue(x instanceof MultiNumber);
+        var square = x.mul(x);
+        assertTrue(square instanceof NonEmptyBox);
+        assertEquals(Box.of(PolyNumber.of(0, 32768)), square);
+    }
+    
+    @Test
+    public void testBigCoefficients() {
+        System.out.println("\n\ntestBigCoefficients");
+        var x = Box.parse("[[1] [2]]");
+        var p = x.pow(70);
+        assertTrue(p instanceof MultiNumber);
+        assertEquals(NaturalBox.of(BigInteger.ONE.shiftLeft(70)), p.size());
+        var expected = new BoxBuilder();
+        var c = BigInteger.ONE;
+        for (int k = 0; k <= 70; k++) {
+            expected.add(Box.of(PolyNumber.of(0, k, 70 - k)), c);
+            c = c.multiply(BigInteger.valueOf(70 - k)).divide(BigInteger.valueOf(k + 1));
+        }
+        assertEquals(expected.build(), p);
+        assertEquals(p, x.pow(36).mul(x.pow(34)));
+        assertEquals(p.mul(x), p.mulTruncated(x, 71));
+        var big = NaturalBox.of(BigInteger.ONE.shiftLeft(70));
+        var m = x.mul(big);
+        assertTrue(m instanceof MultiNumber);
+        assertEquals(m, big.mul(x));
+        assertEquals(x.mul(NaturalBox.of(BigInteger.ONE.shiftLeft(71))), m.add(m));
+        assertSame(x, NonEmptyBox.cancel(m.add(x), m)[0]);
+        var alpha = Box.parse("[[1]]");
+        assertEquals(new VirtualBox(m, alpha),
+                new VirtualBox(NonEmptyBox.cancel(m, alpha)[0], Box.of(0)));
+    }
+    
+    @Test
+    public void testBiPolyNumber() {
+        System.out.println("\n\ntestBiPolyNumber");
+        var b = Box.parse("[0 0 [0 0] [0 0 0][0 0 0][0 0 0][0 0 0][1][1][1][0 1][0 1][0 1][0 1][0 1][0 0 1 1]]");
+        Box p = Box.of(1);
+        for (int i = 0; i < 12; i++) {
+            p = p.mul(b);
+        }
+        assertEquals(Box.of(1L << 48), p.size());
+        assertEquals(p.mul(b), b.mul(p));
+        assertEquals(p.mul(b.add(b)), p.mul(b).add(b.mul(p)));
+    }
+    
+}
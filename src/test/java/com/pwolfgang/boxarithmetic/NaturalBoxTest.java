@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public class NaturalBoxTest {
+    
+    @Test
+    public void testRepresentation() {
+        System.out.println("\n\ntestRepresentation");
+        var three = Box.of(3);
+        assertTrue(three instanceof NaturalBox);
+        assertEquals(three, Box.of(Box.of(), Box.of(), Box.of()));
+        assertEquals(three, Box.parse("[0 0 0]"));
+        assertEquals("[[ ] [ ] [ ]]", three.toString());
+        assertEquals("3", three.toIntegerString());
+        assertEquals("3", three.asPolyNumber());
+        int count = 0;
+        for (var b : three) {
+            assertSame(EmptyBox.ZERO, b);
+            count++;
+        }
+        assertEquals(3, count);
+        assertEquals(3, three.getContent().size());
+        assertEquals(1, three.getHeight());
+    }
+    
+    @Test
+    public void testArithmetic() {
+        System.out.println("\n\ntestArithmetic");
+        var a = Box.of(123_456_789);
+        var b = Box.of(987_654_321);
+        assertEquals(Box.of(1_111_111_110), a.add(b));
+        var p = (NaturalBox) a.mul(b);
+        assertEquals(121_932_631_112_635_269L, p.longValue());
+        var q = (NaturalBox) p.mul(p);
+        assertEquals(BigInteger.valueOf(121_932_631_112_635_269L).pow(2), q.bigValue());
+        assertThrows(ArithmeticException.class, q::longValue);
+        assertEquals(new BigInteger("1267650600228229401496703205376"),
+                ((NaturalBox) Box.of(2).pow(Box.of(100))).bigValue());
+        assertTrue(a.compareTo(b) < 0);
+        assertTrue(q.compareTo(p) > 0);
+        assertEquals(Box.parse("[0 0 3 3 3 3]"), Box.parse("[0 3 3]").mul(Box.of(2)));
+        assertEquals(Box.parse("[0 0 3 3]"), Box.of(1).add(Box.parse("[0 3 3]")));
+    }
+    
+    @Test
+    public void testVirtual() {
+        System.out.println("\n\ntestVirtual");
+        var x = new VirtualBox(Box.of(1_000_000_000), Box.of(1_000_000_003));
+        assertEquals(Box.of(-3), x);
+        assertEquals(Box.of(-3).hashCode(), x.hashCode());
+    }
+    
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public class PolyNumberTest {
+    
+    @Test
+    public void testRepresentation() {
+        System.out.println("\n\ntestRepresentation");
+        var p = Box.parse("[0 0 2 2 2 5]");
+        assertTrue(p instanceof PolyNumber);
+        assertSame(p, PolyNumber.of(2, 0, 3, 0, 0, 1));
+        assertEquals(5, ((PolyNumber) p).degree());
+        assertEquals(BigInteger.valueOf(3), ((PolyNumber) p).coefficient(2));
+        assertEquals("[0 0 2 2 2 5]", p.toIntegerString());
+        assertEquals("2+3α₀²+α₀⁵", p.asPolyNumber());
+        assertEquals(6, p.intSize());
+        assertEquals(2, p.getHeight());
+        assertEquals(Box.parse("[2 2 2]"), p.tB(Box.of(2)));
+        assertSame(EmptyBox.ZERO, p.tB(Box.of(1)));
+        assertTrue(Box.parse("[0 1000]") instanceof SparsePolyNumber);
+        assertEquals(Box.of(-1), PolyNumber.of(-1));
+        assertTrue(PolyNumber.of(1, -1) instanceof VirtualBox);
+    }
+    
+    @Test
+    public void testArithmetic() {
+        System.out.println("\n\ntestArithmetic");
+        var p = Box.parse("[0 1]");
+        var q = Box.parse("[0 0 2]");
+        assertEquals(Box.parse("[0 0 0 1 2]"), p.add(q));
+        assertEquals(Box.parse("[0 0 1 1 2 3]"), p.mul(q));
+        assertEquals(Box.parse("[0 0 1 1 2 3]"), q.mul(p));
+        assertEquals(Box.parse("[1 1 2 2]"), p.mul(Box.of(2)).mul(Box.parse("[1]")));
+        assertEquals(Box.parse("[0 0 1 1 1000]"), p.add(Box.parse("[0 1 1000]")));
+        assertEquals(Box.parse("[1 2 1000 1001]"), Box.parse("[1]").mul(p).mul(Box.parse("[0 999]")));
+        assertEquals(Box.parse("[[0 0 1 1]]"), Box.parse("[[0 1]]").mul(Box.parse("[[0 1]]")));
+    }
+    
+    @Test
+    public void testLargeProduct() {
+        System.out.println("\n\ntestLargeProduct");
+        int n = 3000;
+        var ones = new long[n];
+        Arrays.fill(ones, 1);
+        var p = (PolyNumber) PolyNumber.of(ones).mul(PolyNumber.of(ones));
+        assertEquals(2 * n - 2, p.degree());
+        for (int k = 0; k <= p.degree(); k++) {
+            assertEquals(BigInteger.valueOf(Math.min(k + 1, 2 * n - 1 - k)), p.coefficient(k));
+        }
+        assertEquals((long) n * n, ((NaturalBox) p.size()).longValue());
+    }
+    
+    @Test
+    public void testLargeCoefficients() {
+        System.out.println("\n\ntestLargeCoefficients");
+        long m = Long.MAX_VALUE / 2;
+        var p = PolyNumber.of(m, m);
+        var square = (PolyNumber) p.mul(p);
+        var big = BigInteger.valueOf(m);
+        assertEquals(big.multiply(big).shiftLeft(1), square.coefficient(1));
+        assertEquals(big.multiply(big).shiftLeft(2), ((NaturalBox) square.size()).bigValue());
+        assertEquals(square, p.mul(p));
+        assertEquals(p.mul(p.add(p)), square.add(square));
+        assertTrue(square.compareTo(p) > 0);
+    }
+    
+    @Test
+    public void testFastMultiplication() {
+        System.out.println("\n\ntestFastMultiplication");
+        var random = new Random(11);
+        int karatsuba = Convolution.karatsubaThreshold();
+        int toom3 = Convolution.toom3Threshold();
+        try {
+            for (int n : new int[]{7, 40, 129, 500}) {
+                var a = new long[n];
+                var b = new long[n + n / 3];
+                Arrays.setAll(a, i -> random.nextInt(2001) - 1000);
+                Arrays.setAll(b, i -> random.nextInt(2001) - 1000);
+                Convolution.setKaratsubaThreshold(Integer.MAX_VALUE);
+                var expected = Convolution.multiply(a, b);
+                Convolution.setKaratsubaThreshold(4);
+                Convolution.setToom3Threshold(Integer.MAX_VALUE);
+                assertArrayEquals(expected, Convolution.multiply(a, b));
+                Convolution.setToom3Threshold(9);
+                assertArrayEquals(expected, Convolution.multiply(a, b));
+            }
+        } finally {
+            Convolution.setKaratsubaThreshold(karatsuba);
+            Convolution.setToom3Threshold(toom3);
+        }
+        var ones = new long[2000];
+        Arrays.fill(ones, 1);
+        var p = PolyNumber.of(ones);
+        var cube = (PolyNumber) Box.mul(p, p, p);
+        assertEquals(p.pow(Box.of(3)), cube);
+        assertEquals(BigInteger.valueOf(2001L * 2000 / 2), cube.coefficient(1999));
+    }
+    
+    @Test
+    public void testNumberTheoreticTransform() {
+        System.out.println("\n\ntestNumberTheoreticTransform");
+        var random = new Random(12);
+        int karatsuba = Convolution.karatsubaThreshold();
+        int ntt = Convolution.nttThreshold();
+        try {
+            for (int n : new int[]{1, 5, 64, 300}) {
+                var a = new long[n];
+                var b = new long[2 * n + 1];
+                Arrays.setAll(a, i -> random.nextLong());
+                Arrays.setAll(b, i -> random.nextLong());
+                Convolution.setKaratsubaThreshold(Integer.MAX_VALUE);
+                var expected = Convolution.multiply(a, b);
+                var bigA = Convolution.toBig(a);
+                var bigB = Convolution.toBig(b);
+                var bigExpected = Convolution.multiply(bigA, bigB);
+                Convolution.setKaratsubaThreshold(1);
+                Convolution.setNttThreshold(1);
+                assertArrayEquals(expected, Convolution.multiply(a, b));
+                assertArrayEquals(bigExpected, Convolution.multiply(bigA, bigB));
+            }
+            var ones = new long[3000];
+            Arrays.fill(ones, 1);
+            var p = PolyNumber.of(ones);
+            Convolution.setNttThreshold(Integer.MAX_VALUE);
+            var expected = p.mul(p).mul(p);
+            Convolution.setNttThreshold(1000);
+            assertEquals(expected, p.mul(p).mul(p));
+        } finally {
+            Convolution.setKaratsubaThreshold(karatsuba);
+            Convolution.setNttThreshold(ntt);
+        }
+    }
+
+    @Test
+    public void testPower() {
+        System.out.println("\n\ntestPower");
+        var p = PolyNumber.of(1, 1);
+        Box expected = Box.of(1);
+        for (int i = 0; i < 64; i++) {
+            expected = expected.mul(p);
+        }
+        assertEquals(expected, p.pow(64));
+        assertEquals(expected, p.pow(Box.of(64)));
+        assertEquals(expected, p.pow(BigInteger.valueOf(64)));
+        assertEquals(BigInteger.ONE, ((PolyNumber) expected).coefficient(64));
+        assertEquals(BigInteger.valueOf(64L * 63 / 2), ((PolyNumber) expected).coefficient(2));
+        assertEquals(Box.of(1), p.pow(0));
+        assertEquals(p, p.pow(1));
+        assertEquals(p.mul(p), p.pow(Box.of(Box.of(0), Box.of(0), Box.of(1))));
+        assertEquals(Box.of(1), Box.of(1).pow(BigInteger.TEN.pow(30)));
+        assertEquals(Box.of(8), Box.of(2).pow(3));
+        assertThrows(IllegalArgumentException.class, () -> p.pow(-1));
+        var sparse = Box.parse("[0 1000]");
+        assertEquals(sparse.mul(sparse).mul(sparse), sparse.pow(3));
+    }
+
+    @Test
+    public void testSquare() {
+        System.out.println("\n\ntestSquare");
+        var random = new Random(14);
+        int karatsuba = Convolution.karatsubaThreshold();
+        int ntt = Convolution.nttThreshold();
+        try {
+            for (int n : new int[]{1, 7, 100, 700}) {
+                var a = new long[n];
+                Arrays.setAll(a, i -> random.nextLong());
+                var expected = Convolution.multiply(a, a.clone());
+                assertArrayEquals(expected, Convolution.multiply(a, a));
+                var big = Convolution.toBig(a);
+                assertArrayEquals(Convolution.multiply(big, big.clone()), Convolution.multiply(big, big));
+                Convolution.setKaratsubaThreshold(Integer.MAX_VALUE);
+                assertArrayEquals(expected, Convolution.multiply(a, a));
+                assertArrayEquals(Convolution.multiply(big, big.clone()), Convolution.multiply(big, big));
+                Convolution.setKaratsubaThreshold(karatsuba);
+                Convolution.setNttThreshold(2);
+                assertArrayEquals(expected, Convolution.multiply(a, a));
+                Convolution.setNttThreshold(ntt);
+            }
+        } finally {
+            Convolution.setKaratsubaThreshold(karatsuba);
+            Convolution.setNttThreshold(ntt);
+        }
+        var ones = new long[1000];
+        Arrays.fill(ones, 1);
+        for (var p : new Box[]{PolyNumber.of(3, 0, 5), PolyNumber.of(ones),
+                PolyNumber.of(Long.MAX_VALUE, 2), Box.parse("[0 1000 5000 5000]"),
+                Box.parse("[[3 8] [0 0 2] [0 0 2] [1]]"), Box.parse("[[0 0 2] [0 100] 0]"),
+                new VirtualBox(Box.parse("[0 1 1]"), Box.parse("[2]"))}) {
+            var square = p.square();
+            assertEquals(square, p.mul(p));
+            assertEquals(p.mul(p.add(Box.of(1))), square.add(p));
+        }
+    }
+
+    @Test
+    public void testEval() {
+        System.out.println("\n\ntestEval");
+        var A = PolyNumber.of(1, 1);
+        var p = PolyNumber.of(2, 0, 3, 0, 0, 1);
+        Box expected = Box.of(2).add(Box.of(3).mul(A.pow(2))).add(A.pow(5));
+        assertEquals(expected, p.eval(A));
+        assertEquals(Box.of(2 + 3 * 4 + 32), p.eval(Box.of(2)));
+        assertEquals(Box.of(Box.of(0)), p.eval(Box.of(0)));
+        var shifted = PolyNumber.of(0, 0, 0, 4);
+        assertEquals(Box.of(4).mul(A.pow(3)), shifted.eval(A));
+        var big = PolyNumber.of(Long.MAX_VALUE, 0, 1).mul(Box.of(4));
+        assertEquals(NaturalBox.of(BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(2).add(BigInteger.valueOf(36))),
+                big.eval(Box.of(3)));
+        var m = Box.parse("[[0 1] [0 1] [2] 0 0]");
+        var v = new VirtualBox(Box.of(1), Box.of(3));
+        assertEquals(Box.of(3).add(Box.of(2).mul(A)), m.eval(A));
+        assertEquals(Box.of(3).add(v).add(v), m.eval(v));
+    }
+
+    @Test
+    public void testMulTruncated() {
+        System.out.println("\n\ntestMulTruncated");
+        var ones = new long[300];
+        Arrays.fill(ones, 1);
+        var boxes = new Box[]{Box.of(0), Box.of(5), PolyNumber.of(3, 0, 5), PolyNumber.of(ones),
+                PolyNumber.of(Long.MAX_VALUE, 2).mul(Box.of(4)), NaturalBox.of(BigInteger.TWO.pow(70)),
+                Box.parse("[0 1000 5000 5000]"), Box.parse("[[3 8] [0 0 2] [0 0 2] [1]]"),
+                Box.parse("[[0 0 2] [0 100] 0]"), new VirtualBox(Box.parse("[0 1 1]"), Box.parse("[2]")),
+                Box.parse("[[0 0 2] [0 100] 0]").mul(NaturalBox.of(BigInteger.TWO.pow(70)))};
+        for (var x : boxes) {
+            for (var y : boxes) {
+                var product = x.mul(y);
+                for (int n : new int[]{0, 1, 3, 150, 1000, 6000}) {
+                    assertEquals(AbstractBox.lowTerms(product, n), x.mulTruncated(y, n));
+                }
+            }
+        }
+        var factors = new Box[40];
+        var full = Box.of(1);
+        for (int k = 0; k < factors.length; k++) {
+            factors[k] = Box.of(1).add(Box.of(Box.of(k + 1)));
+            full = full.mul(factors[k]);
+        }
+        assertEquals(AbstractBox.lowTerms(full, 50), Box.mulTruncated(50, factors));
+        assertEquals(Box.of(0), Box.mulTruncated(3));
+        assertEquals(PolyNumber.of(3), Box.mulTruncated(0, PolyNumber.of(3, 0, 5)));
+        assertThrows(IllegalArgumentException.class, () -> Box.of(1).mulTruncated(Box.of(2), -1));
+    }
+
+}
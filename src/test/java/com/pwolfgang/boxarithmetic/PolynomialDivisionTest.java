@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public class PolynomialDivisionTest {
+
+    @Test
+    public void testDivideAndRemainder() {
+        System.out.println("\n\ntestDivideAndRemainder");
+        var f = PolyNumber.of(5, 3, 1);
+        assertArrayEquals(new Box[]{PolyNumber.of(2, 1), Box.of(3)}, f.divideAndRemainder(PolyNumber.of(1, 1)));
+        assertArrayEquals(new Box[]{PolyNumber.of(-2, -1), Box.of(3)}, f.divideAndRemainder(PolyNumber.of(-1, -1)));
+        assertEquals(PolyNumber.of(1, 1, 1), PolyNumber.of(-1, 0, 0, 1).divide(PolyNumber.of(-1, 1)));
+        assertEquals(Box.of(0), PolyNumber.of(-1, 0, 0, 1).remainder(PolyNumber.of(-1, 1)));
+        assertEquals(PolyNumber.of(-1, 1), PolyNumber.of(-1, 1).remainder(f));
+        assertEquals(Box.of(0), PolyNumber.of(-1, 1).divide(f));
+        var g = PolyNumber.of(2, 2);
+        var product = g.mul(PolyNumber.of(3, 1));
+        assertArrayEquals(new Box[]{PolyNumber.of(3, 1), Box.of(0)}, product.divideAndRemainder(g));
+        assertArrayEquals(new Box[]{PolyNumber.of(3, 1), Box.of(1)}, product.add(Box.of(1)).divideAndRemainder(g));
+        assertEquals(Box.parse("[0 200]"), Box.parse("[0 100 200 300]").divide(Box.parse("[0 100]")));
+        assertThrows(ArithmeticException.class, () -> PolyNumber.of(0, 1).divide(PolyNumber.of(0, 2)));
+        assertThrows(ArithmeticException.class, () -> f.divide(Box.of(0)));
+        assertThrows(IllegalArgumentException.class, () -> Box.parse("[[0 0 2]]").divide(Box.of(1)));
+    }
+
+    @Test
+    public void testNewton() {
+        System.out.println("\n\ntestNewton");
+        var random = new Random(25);
+        int threshold = PolynomialDivision.newtonThreshold();
+        try {
+            for (int[] size : new int[][]{{5, 3}, {40, 2}, {200, 60}, {300, 150}, {90, 100}, {700, 300}}) {
+                var g = random(random, size[1], 40);
+                g[g.length - 1] = BigInteger.ONE;
+                var q = random(random, Math.max(1, size[0] - size[1]), 20);
+                var r = random(random, size[1] - 1, 20);
+                var exact = Convolution.multiply(q, g);
+                for (int i = 0; i < r.length; i++) {
+                    exact[i] = exact[i].add(r[i]);
+                }
+                for (var f : new BigInteger[][]{exact, random(random, size[0], 80)}) {
+                    PolynomialDivision.setNewtonThreshold(Integer.MAX_VALUE);
+                    var expected = PolynomialDivision.divide(f, g);
+                    check(f, g, expected);
+                    PolynomialDivision.setNewtonThreshold(1);
+                    var qr = PolynomialDivision.divide(f, g);
+                    assertArrayEquals(expected[0], qr[0]);
+                    assertArrayEquals(expected[1], qr[1]);
+                }
+                if (q[q.length - 1].signum() != 0) {
+                    assertArrayEquals(q, PolynomialDivision.divide(exact, g)[0]);
+                }
+            }
+        } finally {
+            PolynomialDivision.setNewtonThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void testFallback() {
+        System.out.println("\n\ntestFallback");
+        var random = new Random(19);
+        int threshold = PolynomialDivision.newtonThreshold();
+        try {
+            PolynomialDivision.setNewtonThreshold(1);
+            var g = random(random, 300, 40);
+            g[g.length - 1] = BigInteger.ONE;
+            var f = random(random, 1000, 40);
+            assertEquals(-1, PolynomialDivision.primes(f, g));
+            check(f, g, PolynomialDivision.divide(f, g));
+            var exact = Convolution.multiply(random(random, 700, 8), g);
+            int primes = PolynomialDivision.primes(exact, g);
+            assertTrue(primes > 0 && primes <= 3);
+            check(exact, g, PolynomialDivision.divide(exact, g));
+        } finally {
+            PolynomialDivision.setNewtonThreshold(threshold);
+        }
+    }
+
+    /**
+     * Check that f = q·g + r with r shorter than g.
+     */
+    private static void check(BigInteger[] f, BigInteger[] g, BigInteger[][] qr) {
+        assertTrue(qr[1].length < g.length);
+        var product = Convolution.multiply(qr[0], g);
+        for (int i = 0; i < Math.max(f.length, product.length); i++) {
+            var p = i < product.length ? product[i] : BigInteger.ZERO;
+            var r = i < qr[1].length ? qr[1][i] : BigInteger.ZERO;
+            assertEquals(i < f.length ? f[i] : BigInteger.ZERO, p.add(r));
+        }
+    }
+
+    private static BigInteger[] random(Random random, int length, int bits) {
+        var result = new BigInteger[length];
+        Arrays.setAll(result, i -> new BigInteger(bits, random).subtract(BigInteger.ONE.shiftLeft(bits - 1)));
+        return result;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public class PowerSeriesTest {
+
+    @Test
+    public void testArithmetic() {
+        System.out.println("\n\ntestArithmetic");
+        var ones = new long[11];
+        Arrays.fill(ones, 1);
+        var geometric = PowerSeries.of(PolyNumber.of(1, -1)).inverse();
+        assertEquals(PolyNumber.of(ones), geometric.toBox(10));
+        assertEquals(BigInteger.ONE, geometric.coefficient(1000));
+        var p = PolyNumber.of(3, 0, 5, 1);
+        var q = Box.parse("[0 100 500 500]");
+        var v = PolyNumber.of(2, -7, 0, 1);
+        for (var x : new Box[]{p, q, v}) {
+            for (var y : new Box[]{p, q, v}) {
+                assertEquals(x.mul(y), PowerSeries.of(x).mul(PowerSeries.of(y)).toBox(1200));
+                assertEquals(x.add(y), PowerSeries.of(x).add(PowerSeries.of(y)).toBox(600));
+            }
+        }
+        assertEquals(Box.of(2).mul(p), PowerSeries.of(p).add(PowerSeries.of(p)).toBox(3));
+        assertEquals(BigInteger.ZERO, PowerSeries.of(q).mul(PowerSeries.of(q)).coefficient(1_000_000));
+        assertEquals(BigInteger.valueOf(4), PowerSeries.of(q).mul(PowerSeries.of(q)).coefficient(1000));
+        assertEquals(Box.of(0), PowerSeries.of(v).sub(PowerSeries.of(v)).toBox(3));
+        assertEquals(PolyNumber.of(1, 1, 2, 3, 5, 8, 13),
+                PowerSeries.of(PolyNumber.of(1, -1, -1)).inverse().toBox(6));
+        assertThrows(IllegalArgumentException.class, () -> PowerSeries.of(Box.parse("[[0 0 2]]")));
+        assertThrows(ArithmeticException.class, () -> PowerSeries.of(Box.of(0)).inverse());
+        assertThrows(ArithmeticException.class, () -> PowerSeries.of(PolyNumber.of(2, 1)).inverse().coefficient(0));
+    }
+
+    @Test
+    public void testCompose() {
+        System.out.println("\n\ntestCompose");
+        var geometric = PowerSeries.of(n -> BigInteger.ONE);
+        var fibonacci = geometric.compose(PowerSeries.of(PolyNumber.of(0, 1, 1)));
+        assertEquals(PowerSeries.of(PolyNumber.of(1, -1, -1)).inverse().toBox(100), fibonacci.toBox(100));
+        var p = PolyNumber.of(3, 0, 5, 1);
+        var g = PolyNumber.of(0, 2, -1);
+        var expected = Box.of(3).add(Box.of(5).mul(g.pow(2))).add(g.pow(3));
+        assertEquals(expected, PowerSeries.of(p).compose(PowerSeries.of(g)).toBox(6));
+        assertThrows(IllegalArgumentException.class, () -> geometric.compose(geometric));
+    }
+
+    @Test
+    public void testMemoisation() {
+        System.out.println("\n\ntestMemoisation");
+        var calls = new int[1];
+        var pentagonal = PowerSeries.of(n -> {
+            calls[0]++;
+            for (int k = 0; (long) k * (3 * k - 1) / 2 <= n; k++) {
+                if (k * (3 * k - 1) / 2 == n || k > 0 && k * (3 * k + 1) / 2 == n) {
+                    return BigInteger.valueOf(k % 2 == 0 ? 1 : -1);
+                }
+            }
+            return BigInteger.ZERO;
+        });
+        var partitions = pentagonal.inverse();
+        var expected = new QPochhammer(2000).div(-1, 1, 2000);
+        assertEquals(new QPochhammer(1000).div(-1, 1, 1000).toBox(), partitions.toBox(1000));
+        assertEquals(1001, calls[0]);
+        assertEquals(expected.toBox(), partitions.toBox(2000));
+        assertEquals(2001, calls[0]);
+        assertEquals(expected.coefficient(2000), partitions.coefficients().skip(2000).findFirst().get());
+        assertEquals(2001, calls[0]);
+        assertThrows(IllegalArgumentException.class, () -> partitions.coefficient(-1));
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public class QPochhammerTest {
+
+    @Test
+    public void testProduct() {
+        System.out.println("\n\ntestProduct");
+        var expected = Box.of(1);
+        for (int k = 1; k <= 12; k++) {
+            expected = expected.mul(Box.of(1).add(Box.of(Box.of(k))));
+        }
+        assertEquals(expected, new QPochhammer(78).mul(1, 1, 12).toBox());
+        assertEquals(AbstractBox.lowTerms(expected, 20), new QPochhammer(20).mul(1, 1, 12).toBox());
+        var minus = new QPochhammer(30).mul(-1, 1).mul(-1, 2, 5);
+        var factors = Box.of(1);
+        for (int k = 1; k <= 5; k++) {
+            var term = new long[k + 1];
+            term[0] = 1;
+            term[k] = -1;
+            factors = factors.mul(PolyNumber.of(term));
+        }
+        assertEquals(factors, minus.toBox());
+        assertEquals(Box.of(1), minus.div(-1, 1, 5).toBox());
+        assertEquals(Box.of(1), new QPochhammer(0).mul(1, 1, 100).toBox());
+    }
+
+    @Test
+    public void testPentagonalNumbers() {
+        System.out.println("\n\ntestPentagonalNumbers");
+        int n = 5000;
+        var product = new QPochhammer(n).mul(-1, 1, n);
+        var expected = new long[n + 1];
+        for (int k = 0; (long) k * (3 * k - 1) / 2 <= n; k++) {
+            long sign = k % 2 == 0 ? 1 : -1;
+            expected[k * (3 * k - 1) / 2] = sign;
+            if (k * (3 * k + 1) / 2 <= n) {
+                expected[k * (3 * k + 1) / 2] = sign;
+            }
+        }
+        assertEquals(PolyNumber.of(expected), product.toBox());
+        assertEquals(BigInteger.ONE, product.coefficient(0));
+        assertEquals(-1, product.coefficients().limit(3).mapToInt(BigInteger::intValue).sum());
+    }
+
+    @Test
+    public void testPartitions() {
+        System.out.println("\n\ntestPartitions");
+        var partitions = new QPochhammer(1000).div(-1, 1, 1000);
+        assertEquals(BigInteger.valueOf(190569292), partitions.coefficient(100));
+        assertEquals(new BigInteger("24061467864032622473692149727991"), partitions.coefficient(1000));
+        assertEquals(1001, partitions.coefficients().count());
+        var one = partitions.mul(-1, 1, 1000).toBox();
+        assertEquals(Box.of(1), one);
+        var distinct = new QPochhammer(100).mul(1, 1, 100);
+        var odd = new QPochhammer(100);
+        for (int k = 1; k <= 100; k += 2) {
+            odd.div(-1, k);
+        }
+        assertEquals(odd.toBox(), distinct.toBox());
+        assertThrows(IllegalArgumentException.class, () -> distinct.mul(2, 1));
+        assertThrows(IllegalArgumentException.class, () -> distinct.div(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new QPochhammer(-1));
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2026 Paul Wolfgang <paul@pwolfgang.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.pwolfgang.boxarithmetic;
+
+import java.math.BigInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Paul Wolfgang <a href="mailto:paul@pwolfgang.com"></a>
+ */
+public class SparsePolyNumberTest {
+    
+    @Test
+    public void testRepresentation() {
+        System.out.println("\n\ntestRepresentation");
+        var p = Box.parse("[0 1000000]");
+        assertTrue(p instanceof SparsePolyNumber);
+        assertSame(p, SparsePolyNumber.of(new long[]{1000000, 0}, new long[]{1, 1}));
+        assertSame(p, Box.of(Box.of(0), Box.of(1000000)));
+        assertEquals("[0 1000000]", p.toIntegerString());
+        assertEquals("1+α₀¹⁰⁰⁰⁰⁰⁰", p.asPolyNumber());
+        assertEquals(2, p.intSize());
+        assertEquals(2, p.getHeight());
+        assertEquals(1000000L, ((SparsePolyNumber) p).degree());
+        assertEquals(Box.parse("[1000000]"), p.tB(Box.of(1000000)));
+        assertSame(EmptyBox.ZERO, p.tB(Box.of(5)));
+        var q = (SparsePolyNumber) Box.parse("[3 3 10000000000]");
+        assertArrayEquals(new long[]{3, 10_000_000_000L}, q.exponents());
+        assertArrayEquals(new long[]{2, 1}, q.coefficients());
+        assertTrue(Box.parse("[0 1 2 3 4 5 6 7 8 9 10 11 12 40]") instanceof PolyNumber);
+    }
+    
+    @Test
+    public void testArithmetic() {
+        System.out.println("\n\ntestArithmetic");
+        var p = Box.parse("[0 1000000]");
+        assertEquals(Box.parse("[0 0 1000000 1000000]"), p.add(p));
+        assertEquals(Box.parse("[0 1000000 1000000 2000000]"), p.mul(p));
+        assertEquals(Box.parse("[0 0 1 1000000 1000000 1000001]"), p.mul(Box.parse("[0 0 1]")));
+        assertEquals(Box.parse("[0 0 1 1000000]"), p.add(Box.parse("[0 1]")));
+        assertEquals(Box.parse("[0 1 1000000]"), Box.parse("[1 1000000]").add(Box.of(1)));
+        assertEquals(Box.parse("[3 3 1000003 1000003]"), Box.of(2).mul(p).mul(Box.parse("[3]")));
+        var difference = Box.parse("[0 1000000]").mul(Box.parse("[0 1000000]"))
+                .add(new VirtualBox(Box.of(0), Box.parse("[1000000 1000000]")));
+        assertEquals(new VirtualBox(Box.parse("[0 2000000]"), Box.of(0)), difference);
+        var dense = Box.parse("[0 40]").mul(Box.parse("[0 1 2 3 4 5 6 7 8 9 10 11 12 13]"));
+        assertTrue(dense instanceof PolyNumber);
+        assertEquals(28, dense.intSize());
+    }
+    
+    @Test
+    public void testEval() {
+        System.out.println("\n\ntestEval");
+        var p = Box.parse("[0 0 62]");
+        assertEquals(Box.of(2).add(NaturalBox.of(1L << 62)), p.eval(Box.of(2)));
+        var q = Box.parse("[0 100000]");
+        assertEquals(Box.parse("[0 100000]"), q.eval(Box.parse("[1]")));
+        assertEquals(Box.parse("[0 3000000]"), Box.parse("[0 1000000]").eval(Box.parse("[3]")));
+        var r = Box.parse("[0 1 40]").eval(Box.parse("[0 1]"));
+        assertEquals(Box.of(3).add(NaturalBox.of(1L << 40)), r.size());
+    }
+
+    @Test
+    public void testOverflow() {
+        System.out.println("\n\ntestOverflow");
+        var p = Box.parse("[0 1000000]");
+        var q = p.pow(70);
+        var dense = (AbstractBox) Box.parse("[0 1]").pow(70);
+        assertTrue(q instanceof SparsePolyNumber);
+        var s = (SparsePolyNumber) q;
+        assertEquals(dense.distinctSize(), s.distinctSize());
+        for (int i = 0; i < s.distinctSize(); i++) {
+            assertEquals(1000000L * i, s.exponents()[i]);
+            assertEquals(dense.bigMultiplicity(i), s.bigMultiplicity(i));
+        }
+        assertEquals(BigInteger.TWO.pow(70), q.evalBigInteger(BigInteger.ONE));
+        assertThrows(ArithmeticException.class, () -> s.coefficients());
+        assertEquals(q.mul(p), q.mul(Box.parse("[0 1000000]").mul(Box.of(1))));
+        assertEquals(AbstractBox.lowTerms(q.mul(p), 35_000_000), q.mulTruncated(p, 35_000_000));
+        var x = BigInteger.TWO;
+        var m = SparsePolyNumber.of(new long[]{0, 1000}, new long[]{Long.MAX_VALUE, 1});
+        var mx = m.evalBigInteger(x);
+        assertEquals(mx.shiftLeft(1), m.add(m).evalBigInteger(x));
+        assertEquals(mx.multiply(mx), m.square().evalBigInteger(x));
+        assertEquals(m.add(m), m.mul(Box.of(2)));
+        var big = PolyNumber.of(Long.MAX_VALUE, 2).mul(Box.of(4));
+        var bx = big.evalBigInteger(x);
+        assertEquals(mx.add(bx), m.add(big).evalBigInteger(x));
+        assertEquals(mx.multiply(bx), m.mul(big).evalBigInteger(x));
+        assertEquals(m.add(big), big.add(m));
+    }
+
+}
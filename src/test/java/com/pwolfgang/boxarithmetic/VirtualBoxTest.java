@@ -115,4 +115,17 @@ public class VirtualBoxTest {
         assertEquals(expected, A.mul(B));
     }
     
+    @Test
+    public void testOrder() {
+        System.out.println("\n\nTest order");
+        var x = new VirtualBox(Box.of(4), Box.of(6));
+        var y = new VirtualBox(Box.of(5), Box.of(7));
+        var z = new VirtualBox(Box.of(0), Box.of(1));
+        assertEquals(0, x.compareTo(y));
+        assertEquals(x.hashCode(), y.hashCode());
+        assertTrue(z.compareTo(x) < 0);
+        assertTrue(x.compareTo(z) > 0);
+        assertTrue(Box.of(5).compareTo(x) < 0);
+    }
+    
 }
@@ -44,6 +44,18 @@ public class polynumberTests {
         assertEquals(p3, Box.add(p1, p2));
     }
     
+    @Test
+    public void testAdditionChain() {
+        Box sum = Box.of(0);
+        for (int i = 0; i < 1000; i++) {
+            sum = sum.add(Box.of(Box.of(i % 10), Box.of(0)));
+        }
+        assertEquals(2000, sum.intSize());
+        assertEquals(Box.of(1100), sum.tB(Box.of(0)));
+        assertEquals(Box.parse("[3 3]").mul(Box.of(50)), sum.tB(Box.of(3)));
+        assertTrue(sum.asPolyNumber().startsWith("1100+100\u03B1\u2080+100\u03B1\u2080\u00B2+"));
+    }
+    
     @Test
     public void testMul() {
         var A = Box.parse("[1 3]");
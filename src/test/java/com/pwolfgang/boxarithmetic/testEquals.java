@@ -17,7 +17,11 @@
  */
 package com.pwolfgang.boxarithmetic;
 
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import org.junit.jupiter.api.Test;
 import com.pwolfgang.boxarithmetic.Box;
 
@@ -31,4 +35,19 @@ public class testEquals {
         assertFalse(areEqual);
     }
     
+    @Test
+    public void testEqualsLarge() {
+        List<Box> forward = new ArrayList<>();
+        List<Box> backward = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            forward.add(Box.of(Box.of(i % 7), Box.of(-i)));
+            backward.add(0, Box.of(Box.of(-i), Box.of(i % 7)));
+        }
+        var x = Box.of(forward);
+        var y = Box.of(backward);
+        assertEquals(x, y);
+        backward.set(0, Box.of(3));
+        assertNotEquals(x, Box.of(backward));
+    }
+    
 }